@@ -0,0 +1,57 @@
+import benchmarks.Targets;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// The converter code behind benchmarks.Targets, in the default package next to the converter classes
+public class BenchmarkTargets implements Targets {
+
+    @Override
+    public String convertWildcardToRegex(String wildcard) {
+        return Pdf2Txt.convertWildcardToRegex(wildcard);
+    }
+
+    @Override
+    public Predicate<String> wildcardMatcher(Pattern pattern) {
+        return WildcardMatcher.fromPattern(pattern)::matches;
+    }
+
+    @Override
+    public void convertPdfs(File source, File dest, Pattern pattern, Date minDate, Date maxDate) {
+        Pdf2Txt.convertPdfs(source, dest, pattern, minDate, maxDate);
+    }
+
+    @Override
+    public void writeText(PDDocument document, Writer writer, PDFTextStripper stripper) throws IOException {
+        BatchConverter.writeText(document, writer, stripper);
+    }
+
+    @Override
+    public void writeTextFile(File target, Charset charset, int bufferSize, boolean gzip, int gzipLevel, String[] pages) throws IOException {
+        try (TextFileWriter out = new TextFileWriter(target, charset, bufferSize, gzip, gzipLevel)) {
+            for (String page : pages) {
+                out.write(page);
+            }
+            out.commit();
+        }
+    }
+
+    @Override
+    public Object convertDirectory(File source, File dest, int threads, String schedule) {
+        ConversionOptions options = new ConversionOptions()
+                .threads(threads)
+                .schedule(ConversionOptions.Schedule.valueOf(schedule.toUpperCase().replace('-', '_')))
+                .quiet(true);
+        try (PdfConverter converter = new PdfConverter(options)) {
+            return converter.convertDirectory(source, dest, Pattern.compile("^.*\\.pdf$"), new Date(0), new Date(), null).join();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import benchmarks.BenchmarkSupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loopback load test of server mode against the one-process-per-file baseline (a fresh
+ * 'java Pdf2Txt file dest' per PDF, as callers using ProcessBuilder do today).
+ * Both sides convert the same small generated PDFs with the same number of concurrent clients
+ * and report requests per second and p50/p95/p99 latency. Not a JMH benchmark, since the
+ * baseline has to start separate JVMs; run it with the classpath used for the benchmarks:
+ *
+ *   java -cp "lib/*:bench-classes" ServerLoadTest [requests] [clients] [pages]
+ */
+public class ServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int pages = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        File dir = Files.createTempDirectory("pdf2txt-server-load").toFile();
+        try {
+            File pdf = new File(dir, "small.pdf");
+            BenchmarkSupport.createDummyPdf(pdf, pages);
+            byte[] pdfBytes = Files.readAllBytes(pdf.toPath());
+
+            System.out.println("Converting a " + pages + "-page PDF (" + pdfBytes.length + " bytes) with " + clients + " concurrent client(s)");
+
+            System.setProperty("sun.net.httpserver.nodelay", "true"); // as the CLI does in server mode
+            ConversionServer server = new ConversionServer(0, new ConversionOptions().threads(clients));
+            server.start();
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://127.0.0.1:" + server.getPort() + "/convert");
+            Callable<Void> post = () -> {
+                HttpResponse<String> response = client.send(
+                        HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofByteArray(pdfBytes)).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    throw new IOException("Server answered " + response.statusCode());
+                }
+                return null;
+            };
+            run(post, clients * 10, clients); // JIT warm-up, not measured
+            print("server", run(post, requests, clients));
+            server.stop();
+
+            // Far fewer calls for the baseline, each one starts a JVM
+            int processRequests = Math.max(clients, requests / 10);
+            File out = new File(dir, "out");
+            String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Callable<Void> spawn = () -> {
+                Process process = new ProcessBuilder(javaBin, "-cp", System.getProperty("java.class.path"),
+                        "Pdf2Txt", pdf.getAbsolutePath(), out.getAbsolutePath())
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                if (process.waitFor() != 0) {
+                    throw new IOException("Process exited with " + process.exitValue());
+                }
+                return null;
+            };
+            print("process-per-file", run(spawn, processRequests, clients));
+        } finally {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static class Result {
+        final long[] latencies;
+        final long wallNanos;
+
+        Result(long[] latencies, long wallNanos) {
+            this.latencies = latencies;
+            this.wallNanos = wallNanos;
+        }
+    }
+
+    // Runs count calls on the given number of client threads, timing each one
+    private static Result run(Callable<Void> call, int count, int clients) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Long>> futures = new ArrayList<>(count);
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                futures.add(pool.submit(() -> {
+                    long callStart = System.nanoTime();
+                    call.call();
+                    return System.nanoTime() - callStart;
+                }));
+            }
+            long[] latencies = new long[count];
+            for (int i = 0; i < count; i++) {
+                latencies[i] = futures.get(i).get();
+            }
+            return new Result(latencies, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void print(String name, Result result) {
+        long[] sorted = result.latencies.clone();
+        Arrays.sort(sorted);
+        System.out.println(String.format(Locale.ROOT, "%-17s %6d requests  %8.1f req/s  p50 %8.2f ms  p95 %8.2f ms  p99 %8.2f ms",
+                name, sorted.length, sorted.length / (result.wallNanos / 1e9),
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99)));
+    }
+
+    // Nearest rank, in milliseconds
+    private static double percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Synthetic inputs shared by the benchmarks
+public class BenchmarkSupport {
+    private static final String[] PREFIXES = {"report_", "invoice_", "scan_", "IMG_", "draft-"};
+    private static final String[] EXTENSIONS = {".pdf", ".PDF", ".txt", ".docx", ".png"};
+
+    // Names like 'report_2021_0042_final.pdf', with a mix of prefixes and extensions
+    public static List<String> syntheticFileNames(int count, Random random) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String prefix = PREFIXES[random.nextInt(PREFIXES.length)];
+            String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            String suffix = random.nextBoolean() ? "_final" : "";
+            names.add(prefix + (2015 + random.nextInt(10)) + "_" + String.format("%04d", i % 10000) + suffix + extension);
+        }
+        return names;
+    }
+
+    // Creates count empty files, matchingRatio of them named 'report_N.pdf', the rest 'other_N.dat'
+    public static void createEmptyFiles(File dir, int count, double matchingRatio, Random random) throws IOException {
+        for (int i = 0; i < count; i++) {
+            String name = random.nextDouble() < matchingRatio ? "report_" + i + ".pdf" : "other_" + i + ".dat";
+            Files.createFile(new File(dir, name).toPath());
+        }
+    }
+
+    // Same PDFs as the tests' TestPdfs, which is out of reach of this package, with one line of text per page
+    public static void createDummyPdf(File file, int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+
+                try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                    contentStream.beginText();
+                    contentStream.setFont(PDType1Font.HELVETICA, 12);
+                    contentStream.newLineAtOffset(100, 700);
+                    contentStream.showText("Benchmark page " + i + ". The quick brown fox jumps over the lazy dog.");
+                    contentStream.endText();
+                }
+            }
+
+            document.save(file);
+        }
+    }
+
+    public static void deleteRecursively(File dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end extraction of a single document: load plus streamed text extraction, on generated
+ * PDFs of different page counts. Text goes to a writer that only counts characters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int pageCount;
+
+    private Targets targets;
+    private File pdf;
+    private PDFTextStripper stripper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        targets = Targets.get();
+        pdf = Files.createTempFile("pdf2txt-extraction-bench", ".pdf").toFile();
+        BenchmarkSupport.createDummyPdf(pdf, pageCount);
+        stripper = new PDFTextStripper();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(pdf.toPath());
+    }
+
+    @Benchmark
+    public long loadAndExtract() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            targets.writeText(document, writer, stripper);
+        }
+        return writer.count;
+    }
+
+    private static class CountingWriter extends Writer {
+        long count = 0;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
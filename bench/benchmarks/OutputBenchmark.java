@@ -0,0 +1,96 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing one document's text (about 4 MB, in page-sized pieces as the stripper writes it) with the
+ * output options: the old FileWriter with its 8K buffer, the FileChannel writer with small and large
+ * direct buffers, and gzip at levels 1, 6 and 9. The size of each output file is printed at the end
+ * of its trial, next to the throughput, to show the size/speed trade-off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputBenchmark {
+
+    @Param({"filewriter", "channel-8K", "channel-64K", "channel-1M", "gzip-1", "gzip-6", "gzip-9"})
+    public String writer;
+
+    private Targets targets;
+    private String[] pages;
+    private File target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        targets = Targets.get();
+        pages = syntheticPages(1200, new Random(42));
+        target = Files.createTempFile("pdf2txt-output-bench", ".txt").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        long chars = 0;
+        for (String page : pages) {
+            chars += page.length();
+        }
+        System.out.printf("%n%s: %,d chars -> %,d bytes on disk (%.1f%%)%n", writer, chars, target.length(), 100.0 * target.length() / chars);
+        Files.deleteIfExists(target.toPath());
+    }
+
+    @Benchmark
+    public void writeDocument() throws IOException {
+        write(targets, writer, pages, target);
+    }
+
+    static void write(Targets targets, String writer, String[] pages, File target) throws IOException {
+        if (writer.equals("filewriter")) {
+            // The writer used before the output options
+            try (Writer out = new BufferedWriter(new FileWriter(target, StandardCharsets.UTF_8))) {
+                for (String page : pages) {
+                    out.write(page);
+                }
+            }
+            return;
+        }
+        boolean gzip = writer.startsWith("gzip-");
+        int bufferSize = gzip ? 64 * 1024 : parseSize(writer.substring("channel-".length()));
+        int level = gzip ? Integer.parseInt(writer.substring("gzip-".length())) : -1;
+        targets.writeTextFile(target, StandardCharsets.UTF_8, bufferSize, gzip, level, pages);
+    }
+
+    private static int parseSize(String size) {
+        int value = Integer.parseInt(size.substring(0, size.length() - 1));
+        return size.endsWith("M") ? value * 1024 * 1024 : value * 1024;
+    }
+
+    // Pages of about 3.5K characters of words, numbers and a few accented letters, like extracted reports
+    static String[] syntheticPages(int count, Random random) {
+        String[] words = {"the", "report", "revenue", "quarter", "total", "amount", "ανάλυση", "Übersicht", "invoice", "net",
+                "€", "section", "and", "of", "compliance", "período", "2023", "per", "annual", "filing"};
+        String[] pages = new String[count];
+        for (int p = 0; p < count; p++) {
+            StringBuilder page = new StringBuilder();
+            for (int line = 0; line < 45; line++) {
+                for (int w = 0; w < 12; w++) {
+                    page.append(random.nextInt(5) == 0 ? String.valueOf(random.nextInt(100000)) : words[random.nextInt(words.length)]).append(' ');
+                }
+                page.append('\n');
+            }
+            pages[p] = page.toString();
+        }
+        return pages;
+    }
+}
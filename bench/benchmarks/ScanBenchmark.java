@@ -0,0 +1,64 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Scan-and-filter phase of Pdf2Txt.convertPdfs over large directories. The date range excludes every
+ * file, so the walk, name filter and date check run for all entries but nothing is converted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int fileCount;
+
+    // Share of the entries that end in .pdf and match the wildcard
+    @Param({"0.01", "0.5"})
+    public double matchingRatio;
+
+    private Targets targets;
+    private File sourceDir;
+    private File destDir;
+    private Pattern pattern;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        targets = Targets.get();
+        sourceDir = Files.createTempDirectory("pdf2txt-scan-bench").toFile();
+        destDir = Files.createTempDirectory("pdf2txt-scan-bench-out").toFile();
+        BenchmarkSupport.createEmptyFiles(sourceDir, fileCount, matchingRatio, new Random(42));
+        pattern = Pattern.compile(targets.convertWildcardToRegex("report_*.pdf"), Pattern.CASE_INSENSITIVE);
+
+        // Keep the per-run summary lines out of the benchmark output
+        originalOut = System.out;
+        System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        BenchmarkSupport.deleteRecursively(sourceDir);
+        BenchmarkSupport.deleteRecursively(destDir);
+    }
+
+    @Benchmark
+    public void scanAndFilter() {
+        // 01-01-1970 00:00:00.000 - 00:00:00.001: every file falls outside the range
+        targets.convertPdfs(sourceDir, destDir, pattern, new Date(0), new Date(1));
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makespan (wall time of the whole batch) of a parallel run over a skewed corpus with each --schedule:
+ * many short documents, like invoices, and a few long ones, like scanned reports, named so that the
+ * long ones land anywhere in the listing. Each iteration converts the whole corpus into a fresh dest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScheduleBenchmark {
+    static final int THREADS = 4;
+
+    @Param({"fifo", "largest-first", "smallest-first"})
+    public String schedule;
+
+    private Targets targets;
+    private File corpus;
+    private File dest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        targets = Targets.get();
+        corpus = Files.createTempDirectory("pdf2txt-schedule-bench").toFile();
+        createSkewedCorpus(corpus, new Random(42));
+    }
+
+    @Setup(Level.Iteration)
+    public void createDest() throws IOException {
+        dest = Files.createTempDirectory("pdf2txt-schedule-bench-out").toFile();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteDest() throws IOException {
+        BenchmarkSupport.deleteRecursively(dest);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(corpus);
+    }
+
+    @Benchmark
+    public Object convertCorpus() {
+        return targets.convertDirectory(corpus, dest, THREADS, schedule);
+    }
+
+    // 120 documents of 2 to 10 pages and 3 of 500, under shuffled numbers. The long ones hold about
+    // two thirds of the pages, so one of them started last keeps a worker busy long after the others are done.
+    static void createSkewedCorpus(File dir, Random random) throws IOException {
+        int count = 123;
+        int[] numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = numbers[i];
+            numbers[i] = numbers[j];
+            numbers[j] = swap;
+        }
+        for (int i = 0; i < count; i++) {
+            int pages = i < 3 ? 500 : 2 + random.nextInt(9);
+            BenchmarkSupport.createDummyPdf(new File(dir, String.format("doc_%03d.pdf", numbers[i])), pages);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The converter code the benchmarks measure. JMH only accepts benchmarks in a named package, and a named
+ * package cannot refer to the converter classes in the default package, so bench/BenchmarkTargets.java
+ * implements this next to them and the benchmarks look it up by name once, in their setup.
+ */
+public interface Targets {
+
+    static Targets get() {
+        try {
+            return (Targets) Class.forName("BenchmarkTargets").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkTargets is missing, compile bench/*.java with the benchmarks", e);
+        }
+    }
+
+    // Pdf2Txt.convertWildcardToRegex
+    String convertWildcardToRegex(String wildcard);
+
+    // WildcardMatcher.fromPattern(pattern)::matches
+    Predicate<String> wildcardMatcher(Pattern pattern);
+
+    // Pdf2Txt.convertPdfs with the default options
+    void convertPdfs(File source, File dest, Pattern pattern, Date minDate, Date maxDate);
+
+    // BatchConverter.writeText
+    void writeText(PDDocument document, Writer writer, PDFTextStripper stripper) throws IOException;
+
+    // The pages written and committed through a TextFileWriter
+    void writeTextFile(File target, Charset charset, int bufferSize, boolean gzip, int gzipLevel, String[] pages) throws IOException;
+
+    // PdfConverter.convertDirectory over every PDF of source with --threads and --schedule, returns the summary
+    Object convertDirectory(File source, File dest, int threads, String schedule);
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Wildcard matching over large synthetic filename lists: the regex (conversion plus Pattern.matcher)
+ * against the WildcardMatcher the scan uses for every directory entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WildcardBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int fileCount;
+
+    @Param({"*.pdf", "report_*.pdf", "report_20??_*_final.pdf"})
+    public String wildcard;
+
+    private List<String> fileNames;
+    private Pattern pattern;
+    private Targets targets;
+    private Predicate<String> matcher;
+
+    @Setup
+    public void setUp() {
+        targets = Targets.get();
+        fileNames = BenchmarkSupport.syntheticFileNames(fileCount, new Random(42));
+        pattern = Pattern.compile(targets.convertWildcardToRegex(wildcard), Pattern.CASE_INSENSITIVE);
+        matcher = targets.wildcardMatcher(pattern);
+    }
+
+    @Benchmark
+    public Pattern convertWildcardToRegex() {
+        return Pattern.compile(targets.convertWildcardToRegex(wildcard), Pattern.CASE_INSENSITIVE);
+    }
+
+    @Benchmark
+    public int matchFileNames() {
+        int matches = 0;
+        for (String fileName : fileNames) {
+            if (pattern.matcher(fileName).matches()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int matchFileNamesWithoutRegex() {
+        int matches = 0;
+        for (String fileName : fileNames) {
+            if (matcher.test(fileName)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public void nameFilter(Blackhole bh) {
+        // Same checks as the scan: trim, .pdf extension, then the wildcard
+        for (String fileName : fileNames) {
+            String name = fileName.trim();
+            bh.consume(name.regionMatches(true, name.length() - 4, ".pdf", 0, 4) && matcher.test(name));
+        }
+    }
+}
@@ -0,0 +1,1185 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the matching PDF files of a source directory on a bounded pool of worker threads,
+ * on a staged pipeline in pipeline mode (see ConversionPipeline), or on a virtual thread per file
+ * in virtual-thread mode (Java 21+).
+ * Each worker keeps its own PDFTextStripper, since the stripper is not thread-safe.
+ * In recursive mode the folder structure of source is mirrored under dest.
+ */
+class BatchConverter {
+    private final File source;
+    private final File dest;
+    private final WildcardMatcher nameMatcher;
+    private final long minMillis;
+    private final long maxMillis;
+    private final ConversionOptions options;
+    private final Path root;
+    private final PrintStream out; // progress, silenced in quiet mode
+    private final PrintStream err;
+
+    // Counters are updated from the worker threads
+    private final AtomicInteger countMatching = new AtomicInteger();
+    private final AtomicInteger countConverted = new AtomicInteger();
+    private final AtomicInteger countSkipped = new AtomicInteger();
+    private final AtomicInteger countFailed = new AtomicInteger();
+    private final AtomicInteger countQuarantined = new AtomicInteger(); // skipped, quarantined by an earlier run
+    private final AtomicInteger countOverBudget = new AtomicInteger();
+    private int countScanned = 0; // only updated by the scanning thread
+    private List<Job> scannedJobs; // null unless the scan is ordered by size (--schedule), only used by the scanning thread
+
+    private ConversionManifest manifest; // null unless incremental
+    private QuarantineList quarantine; // null unless a time or page budget is set
+    private BudgetWatchdog watchdog; // null unless a time budget is set
+    private RunReport report; // null unless a report file was requested
+    private TextContainerWriter container; // null unless all text goes into one container file
+    private PageRangeExtractor pageRangeExtractor; // null unless large documents are split into page ranges
+    private ExtractionCache cache; // null unless extracted text is cached by content hash
+    private Set<File> inFlightFiles; // null unless watching, files submitted and not yet done
+    private JobDispatcher dispatcher;
+    private Consumer<ConversionResult> resultListener; // null unless used through the library API
+    private int shard = 0; // 0 unless only one shard of the files is converted (--shard)
+    private Listing listing; // null unless the files come from an earlier scan instead of a walk (--shard)
+    private Listing listed; // only set while list() walks source
+    private ConcurrencyController controller; // null unless the documents at once are adjusted (--adaptive)
+    private Semaphore cpuPermits; // null unless on virtual threads, bounds the text extractions running at once
+    private final Queue<BudgetedTextStripper> idleStrippers = new ConcurrentLinkedQueue<>(); // virtual threads only
+
+    private final ThreadLocal<BudgetedTextStripper> strippers = ThreadLocal.withInitial(() -> {
+        try {
+            return new BudgetedTextStripper();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    });
+
+    // A matching PDF on its way through the conversion
+    static class Job {
+        final File file;
+        final File txtFile;
+        final String displayName;
+        final long size;
+        final long lastModified;
+        String hash; // only set in incremental mode with hashing, or with an extraction cache
+        boolean fromCache;
+        long deadlineNanos; // 0 unless a time budget is set
+        BudgetWatchdog.Watch watch; // null unless a time budget is set, from loading to the end of the extraction
+        final AtomicBoolean finished = new AtomicBoolean(); // set by the first of converted and failed
+        int pages; // 0 until loaded
+        PageIndex pageIndex; // null unless page offsets are recorded, created once loaded
+        TextFileWriter output; // null until opened, and in container mode
+        RunReport.FileMetrics metrics; // null unless a report was requested
+        long attrNanos; // time spent reading the attributes of the file while scanning, only measured for a report
+        long startNanos;
+
+        // Handed between the stages in pipeline mode
+        byte[] pdfBytes;
+        String text;
+
+        Job(File file, File txtFile, String displayName, BasicFileAttributes attr) {
+            this.file = file;
+            this.txtFile = txtFile;
+            this.displayName = displayName;
+            this.size = attr.size();
+            this.lastModified = attr.lastModifiedTime().toMillis();
+        }
+    }
+
+    // The regular files with a matching name found by one walk of source, for the shards converted by a
+    // node to share instead of each walking source again
+    static class Listing {
+        final Map<Path, BasicFileAttributes> files = new LinkedHashMap<>();
+        int scanned;
+    }
+
+    // Receives the matching files from the scan and converts them
+    interface JobDispatcher {
+        // May block to hold back the scan when the workers are busy
+        void submit(Job job) throws InterruptedException;
+
+        // Waits until every submitted job is done
+        void finish();
+    }
+
+    BatchConverter(File source, File dest, Pattern pattern, Date minDate, Date maxDate, ConversionOptions options) {
+        this.source = source;
+        this.dest = dest;
+        this.nameMatcher = WildcardMatcher.fromPattern(pattern);
+        this.minMillis = minDate.getTime();
+        this.maxMillis = maxDate.getTime();
+        this.options = options;
+        this.root = source.toPath();
+        PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+        this.out = options.isQuiet() ? silent : System.out;
+        this.err = options.isQuiet() ? silent : System.err;
+    }
+
+    // Converts only the files of this shard (1..--shard N), under its own manifest and quarantine list
+    void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    // Converts the files of listing (see list) instead of walking source
+    void setListing(Listing listing) {
+        this.listing = listing;
+    }
+
+    // Called on the worker threads with the outcome of every matching file
+    void setResultListener(Consumer<ConversionResult> resultListener) {
+        this.resultListener = resultListener;
+    }
+
+    ConversionSummary getSummary() {
+        return new ConversionSummary(countScanned, countMatching.get(), countConverted.get(), countSkipped.get(), countFailed.get(),
+                countQuarantined.get());
+    }
+
+    void run() {
+        start();
+        try {
+            scan();
+        } finally {
+            stop();
+        }
+        printSummary();
+    }
+
+    // Walks source once without converting anything, the date and shard filters are left to the converters of the listing
+    Listing list() {
+        checkSource();
+        listed = new Listing();
+        try {
+            walk();
+        } catch (IOException | DirectoryIteratorException | SecurityException e) {
+            err.println("Failed to scan source directory: " + source.getAbsolutePath());
+        }
+        Listing result = listed;
+        result.scanned = countScanned;
+        listed = null;
+        return result;
+    }
+
+    private void checkSource() {
+        // Check if source directory can be read
+        if (!Files.isDirectory(root) || !Files.isReadable(root)) {
+            throw new IllegalArgumentException("\nUnable to read contents of source directory: " + source + "\nExiting program.");
+        }
+    }
+
+    // Opens the manifest, report and container as requested and starts the workers
+    void start() {
+        checkSource();
+
+        // Page offsets are taken while the text is encoded into a plain TXT file
+        if (options.isPageIndex() && (options.getContainerFile() != null || options.isGzip() || options.getCacheDir() != null)) {
+            throw new IllegalArgumentException("\n--page-index cannot be combined with --container, --gzip or --cache.");
+        }
+
+        // A shard always has a manifest, for the node that takes it over to resume from
+        if (shard > 0) {
+            try {
+                manifest = new ConversionManifest(dest, ShardLock.fileName(ConversionManifest.FILE_NAME, shard, options.getShardCount()));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("\nUnable to read or create the manifest in destination directory: " + dest.getAbsolutePath());
+            }
+        } else if (options.isIncremental()) {
+            try {
+                manifest = new ConversionManifest(dest);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("\nUnable to read or create the manifest in destination directory: " + dest.getAbsolutePath());
+            }
+        }
+
+        if (options.hasBudget()) {
+            try {
+                quarantine = shard > 0 ? new QuarantineList(dest, ShardLock.fileName(QuarantineList.FILE_NAME, shard, options.getShardCount()))
+                        : new QuarantineList(dest);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("\nUnable to read the quarantine list in destination directory: " + dest.getAbsolutePath());
+            }
+        }
+
+        if (options.getFileTimeoutMillis() > 0) {
+            watchdog = new BudgetWatchdog();
+        }
+
+        if (options.getReportFile() != null) {
+            report = new RunReport();
+        }
+
+        if (options.getContainerFile() != null) {
+            File containerFile = options.getContainerFile();
+            try {
+                Files.createDirectories(containerFile.getAbsoluteFile().getParentFile().toPath());
+                container = new TextContainerWriter(containerFile, options.isGzip(), options.getGzipLevel(), options.getRollSize());
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException("\nUnable to open or create container file: " + containerFile.getAbsolutePath());
+            }
+        }
+
+        if (options.getCacheDir() != null) {
+            try {
+                cache = new ExtractionCache(options.getCacheDir(), options.getCacheSize(), options.isCacheKeyOnSettings());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("\nUnable to open or create cache directory: " + options.getCacheDir().getAbsolutePath());
+            }
+        }
+
+        if (options.isWatch()) {
+            inFlightFiles = ConcurrentHashMap.newKeySet();
+        }
+
+        if (options.getPageSplitThreshold() > 0) {
+            pageRangeExtractor = new PageRangeExtractor(options.getThreads());
+        }
+
+        // Virtual threads need Java 21, older JVMs fall back to the pool
+        ExecutorService virtualThreads = options.isVirtualThreads() && !options.isPipeline() ? newVirtualThreadExecutor() : null;
+        if (options.isPipeline()) {
+            dispatcher = new ConversionPipeline(this, options);
+        } else if (virtualThreads != null) {
+            cpuPermits = new Semaphore(options.getThreads());
+            dispatcher = new VirtualThreadDispatcher(virtualThreads);
+        } else {
+            if (options.isAdaptive()) {
+                controller = new ConcurrencyController(options.getMaxInFlight(), ConcurrencyController.DEFAULT_INTERVAL_MILLIS);
+            }
+            dispatcher = new PoolDispatcher();
+        }
+
+        out.println("Scanning " + (options.isRecursive() ? "recursively " : "") + "for PDF files in: " + source.getAbsolutePath() +
+                (shard > 0 ? " (shard " + shard + "/" + options.getShardCount() + ")" : "") + "\n");
+        if (options.isPipeline()) {
+            out.println("Entering conversion phase (pipeline: " + options.getIoThreads() + " reader(s), " +
+                    options.getThreads() + " converter(s), " + options.getIoThreads() + " writer(s))");
+        } else if (virtualThreads != null) {
+            out.println("Entering conversion phase (virtual threads: up to " + options.getMaxInFlight() + " file(s) in flight, " +
+                    options.getThreads() + " extracting)");
+        } else if (controller != null) {
+            out.println("Entering conversion phase (" + options.getThreads() + " thread(s), adaptive: 1 to " +
+                    options.getMaxInFlight() + " file(s) at once)");
+        } else {
+            out.println("Entering conversion phase (" + options.getThreads() + " thread(s))");
+        }
+        out.println("===========================================");
+    }
+
+    // Walks the source directory and hands every matching PDF to the workers,
+    // or, with a size schedule, collects them and hands them over in order once the walk is done
+    void scan() {
+        long scanStart = report != null ? System.nanoTime() : 0;
+        scannedJobs = options.getSchedule() != ConversionOptions.Schedule.FIFO ? new ArrayList<>() : null;
+        try {
+            if (listing != null) {
+                submitListed();
+            } else {
+                walk();
+            }
+        } catch (IOException | DirectoryIteratorException | SecurityException e) {
+            err.println("Failed to scan source directory: " + source.getAbsolutePath());
+        } finally {
+            if (report != null) {
+                report.addScanNanos(System.nanoTime() - scanStart);
+            }
+        }
+        if (scannedJobs != null) {
+            List<Job> jobs = scannedJobs;
+            scannedJobs = null;
+            submitInOrder(jobs);
+        }
+    }
+
+    private void walk() throws IOException {
+        if (options.isRecursive()) {
+            scanTree();
+        } else {
+            scanDirectory();
+        }
+    }
+
+    // Takes the files from the listing of an earlier walk, with the counts of that walk
+    private void submitListed() {
+        countScanned = listing.scanned;
+        for (Map.Entry<Path, BasicFileAttributes> file : listing.files.entrySet()) {
+            try {
+                submitIfMatching(file.getKey(), file.getValue(), 0); // read by the earlier walk, not timed per file
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                err.println("Conversion interrupted, waiting for running conversions to finish.");
+                return;
+            }
+        }
+    }
+
+    // Largest or smallest file first, files of the same size in the order they were listed
+    private void submitInOrder(List<Job> jobs) {
+        Comparator<Job> bySize = Comparator.comparingLong((Job job) -> job.size);
+        jobs.sort(options.getSchedule() == ConversionOptions.Schedule.LARGEST_FIRST ? bySize.reversed() : bySize);
+        for (int i = 0; i < jobs.size(); i++) {
+            try {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException(); // interrupted during the walk
+                }
+                dispatcher.submit(jobs.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                err.println("Conversion interrupted, waiting for running conversions to finish.");
+                jobs.subList(i, jobs.size()).forEach(this::release);
+                return;
+            }
+        }
+    }
+
+    // Lists only the names, attributes are read for the entries that pass the name filter
+    private void scanDirectory() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+            for (Path entry : entries) {
+                countScanned++;
+                if (!nameMatches(entry)) {
+                    continue;
+                }
+                if (dispatcher instanceof VirtualThreadDispatcher && scannedJobs == null) {
+                    // Blocking attribute reads on slow storage overlap on the virtual threads too
+                    try {
+                        ((VirtualThreadDispatcher) dispatcher).submitEntry(entry);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        err.println("Conversion interrupted, waiting for running conversions to finish.");
+                        return;
+                    }
+                    continue;
+                }
+                long attrStart = report != null ? System.nanoTime() : 0;
+                BasicFileAttributes attr;
+                try {
+                    attr = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    err.println("Failed to read file attributes: " + root.relativize(entry));
+                    continue;
+                }
+                if (!attr.isRegularFile()) {
+                    continue;
+                }
+                try {
+                    submitIfMatching(entry, attr, report != null ? System.nanoTime() - attrStart : 0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    err.println("Conversion interrupted, waiting for running conversions to finish.");
+                    return;
+                }
+            }
+        }
+    }
+
+    // Subfolders can only be told apart from files by their attributes, so here they come with the walk itself
+    private void scanTree() throws IOException {
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            // For a report, the time the walk took to reach a file (reading its directory entry and attributes)
+            // is taken as the time spent reading its attributes
+            private long visited = report != null ? System.nanoTime() : 0;
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attr) {
+                long attrNanos = report != null ? System.nanoTime() - visited : 0;
+                countScanned++;
+                if (attr.isRegularFile() && nameMatches(file)) {
+                    try {
+                        submitIfMatching(file, attr, attrNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        err.println("Conversion interrupted, waiting for running conversions to finish.");
+                        return FileVisitResult.TERMINATE;
+                    }
+                }
+                if (report != null) {
+                    visited = System.nanoTime();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                if (e instanceof FileSystemLoopException) {
+                    err.println("Skipping symbolic link loop: " + root.relativize(file));
+                } else {
+                    err.println("Failed to read file attributes: " + root.relativize(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Hands a single file reported by the directory watcher to the workers, attrNanos is the time the watcher
+    // spent reading attr. Returns false if an earlier version of the file is still being converted, so the
+    // caller can offer it again later.
+    boolean offer(Path file, BasicFileAttributes attr, long attrNanos) throws InterruptedException {
+        if (inFlightFiles.contains(file.toFile())) {
+            return false;
+        }
+        countScanned++;
+        if (nameMatches(file)) {
+            submitIfMatching(file, attr, attrNanos);
+        }
+        return true;
+    }
+
+    // Waits for the submitted conversions and closes the outputs
+    void stop() {
+        dispatcher.finish();
+        if (watchdog != null) {
+            watchdog.close();
+        }
+        if (controller != null) {
+            controller.close();
+        }
+        if (pageRangeExtractor != null) {
+            pageRangeExtractor.close();
+        }
+        closeContainer();
+        closeManifest();
+        closeQuarantine();
+    }
+
+    void printSummary() {
+        // Print number of files converted
+        out.println("===========================================\n");
+        out.println("Scanned a total of " + countScanned + " entries in: " + source.getAbsolutePath());
+        if (countConverted.get() == 0 && countSkipped.get() == 0) {
+            out.println("No PDF files were converted.\n" +
+                    "Possible reasons: no matching files, date filters excluded all, or conversion failed.");
+        } else if (countConverted.get() == 0 && countFailed.get() == 0) {
+            out.println("All " + countSkipped.get() + " matching PDF file(s) are up to date, nothing to convert.");
+        } else {
+            out.println("Successfully converted " + countConverted.get() + "/" + countMatching.get() + " matching PDF file(s)");
+            if (manifest != null) {
+                out.println("Converted: " + countConverted.get() + ", skipped (unchanged): " + countSkipped.get() +
+                        ", failed: " + countFailed.get());
+            }
+            if (container != null) {
+                out.println("Text saved to container: " + options.getContainerFile().getAbsolutePath() +
+                        " (" + container.getEntryCount() + " entries in " + container.getPartCount() + " part(s))");
+            } else {
+                out.println("TXT file(s) saved to: " + dest.getAbsolutePath());
+            }
+        }
+        if (countQuarantined.get() > 0 || countOverBudget.get() > 0) {
+            out.println("Over budget and quarantined: " + countOverBudget.get() + ", skipped (quarantined before): " +
+                    countQuarantined.get() + ". Listed in: " + quarantine.getFile().getAbsolutePath());
+        }
+        if (cache != null) {
+            out.println("Extraction cache: " + cache.describe());
+            if (report != null) {
+                report.addSection("cache", cache.toJson());
+            }
+        }
+        if (controller != null) {
+            out.println("Adaptive concurrency: " + controller.describe());
+            if (report != null) {
+                report.addSection("concurrency", controller.toJson());
+            }
+        }
+        if (dispatcher instanceof ConversionPipeline) {
+            ConversionPipeline pipeline = (ConversionPipeline) dispatcher;
+            out.println("Pipeline queue depth (max/avg): " + pipeline.describeQueueDepths());
+            if (report != null) {
+                report.addSection("pipelineQueues", pipeline.queueDepthsJson());
+            }
+        }
+        writeReport();
+    }
+
+    // Cheap checks on the name only, done before any attributes are read
+    private boolean nameMatches(Path path) {
+        String fileName = path.getFileName().toString().trim();
+
+        // Check if it's a PDF file that matches the wildcard
+        return fileName.regionMatches(true, fileName.length() - 4, ".pdf", 0, 4) && nameMatcher.matches(fileName);
+    }
+
+    private void submitIfMatching(Path path, BasicFileAttributes attr, long attrNanos) throws InterruptedException {
+        if (listed != null) {
+            listed.files.put(path, attr);
+            return;
+        }
+        Job job = matchingJob(path, attr, attrNanos);
+        if (job == null) {
+            return;
+        }
+        if (scannedJobs != null) {
+            scannedJobs.add(job);
+        } else {
+            dispatcher.submit(job);
+        }
+    }
+
+    // The job for a PDF that passes the date filter, or null
+    private Job matchingJob(Path path, BasicFileAttributes attr, long attrNanos) {
+        // Check if file's modified date is within min and max modified date
+        long lastModified = attr.lastModifiedTime().toMillis();
+        if (lastModified < minMillis || lastModified > maxMillis) {
+            return null;
+        }
+
+        // Files of the other shards are left to their nodes
+        Path relative = root.relativize(path);
+        if (shard > 0 && ShardLock.shardOf(relative.toString(), options.getShardCount()) != shard) {
+            return null;
+        }
+
+        // In watch mode a file changed again while converting is picked up on a later offer
+        if (inFlightFiles != null && !inFlightFiles.add(path.toFile())) {
+            return null;
+        }
+
+        countMatching.incrementAndGet();
+        // Create the new TXT file, same name as original PDF file, mirroring its folder under dest
+        String pdfName = path.getFileName().toString();
+        String txtName = pdfName.substring(0, pdfName.length() - 4) + (container == null && options.isGzip() ? ".txt.gz" : ".txt");
+        Path txtPath = dest.toPath().resolve(relative).resolveSibling(txtName);
+
+        Job job = new Job(path.toFile(), txtPath.toFile(), relative.toString(), attr);
+        job.attrNanos = attrNanos;
+        return job;
+    }
+
+    // Runs each job start to finish on one worker of a fixed pool
+    private class PoolDispatcher implements JobDispatcher {
+        private final ExecutorService executor = Executors.newFixedThreadPool(options.getThreads(), workerThreadFactory("pdf2txt-worker-"));
+        // Bounds queued + running documents, so that the scan cannot run far ahead of the workers
+        // (in adaptive mode the controller sets the bound instead)
+        private final Semaphore inFlight = new Semaphore(options.getMaxInFlight());
+        private final BudgetWatchdog.Tasks tasks = new BudgetWatchdog.Tasks();
+
+        @Override
+        public void submit(Job job) throws InterruptedException {
+            if (controller != null) {
+                controller.acquire(job.size);
+            } else {
+                inFlight.acquire();
+            }
+            try {
+                tasks.execute(executor, () -> {
+                    try {
+                        convertFile(job);
+                    } finally {
+                        releaseSlot(job);
+                    }
+                });
+            } catch (RuntimeException e) {
+                releaseSlot(job);
+                throw e;
+            }
+        }
+
+        private void releaseSlot(Job job) {
+            if (controller != null) {
+                controller.release(job.pages);
+            } else {
+                inFlight.release();
+            }
+        }
+
+        @Override
+        public void finish() {
+            tasks.await(executor);
+        }
+    }
+
+    // Runs each file start to finish on its own virtual thread. Loading blocks on storage without holding
+    // a platform thread, only the text extraction is limited to --threads at once (see extract)
+    private class VirtualThreadDispatcher implements JobDispatcher {
+        private final ExecutorService executor;
+        // Bounds the documents open at once, so that the scan cannot run far ahead of the extraction
+        private final Semaphore inFlight = new Semaphore(options.getMaxInFlight());
+        private final BudgetWatchdog.Tasks tasks = new BudgetWatchdog.Tasks();
+
+        VirtualThreadDispatcher(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void submit(Job job) throws InterruptedException {
+            run(() -> convertFile(job));
+        }
+
+        // A directory entry whose name matched, its attributes are read on the virtual thread
+        void submitEntry(Path entry) throws InterruptedException {
+            run(() -> {
+                long attrStart = report != null ? System.nanoTime() : 0;
+                BasicFileAttributes attr;
+                try {
+                    attr = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    err.println("Failed to read file attributes: " + root.relativize(entry));
+                    return;
+                }
+                Job job = attr.isRegularFile() ? matchingJob(entry, attr, report != null ? System.nanoTime() - attrStart : 0) : null;
+                if (job != null) {
+                    convertFile(job);
+                }
+            });
+        }
+
+        private void run(Runnable task) throws InterruptedException {
+            inFlight.acquire();
+            try {
+                tasks.execute(executor, () -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void finish() {
+            tasks.await(executor);
+        }
+    }
+
+    private void convertFile(Job job) {
+        if (skipIfNotNeeded(job) || serveFromCache(job)) {
+            return;
+        }
+
+        // Begin conversion here
+        // The document is loaded before the TXT file is created, so a corrupted PDF leaves no empty TXT behind
+        ExtractionCache.Entry cacheEntry = null;
+        try (PDDocument document = load(job)) {
+            cacheEntry = newCacheEntry(job);
+            try (Writer writer = openOutput(job)) {
+                extract(job, document, cacheEntry != null ? cacheEntry.tee(writer) : writer);
+                if (!stopWatch(job)) {
+                    throw new BudgetedTextStripper.BudgetExceededException("Time budget exceeded");
+                }
+                commitOutput(job);
+            }
+        } catch (IOException | RuntimeException e) {
+            stopWatch(job);
+            if (cacheEntry != null) {
+                cacheEntry.discard();
+            }
+            failed(job, "Error converting file: " + job.displayName, e);
+            return;
+        }
+        commitCacheEntry(job, cacheEntry);
+        converted(job);
+    }
+
+    // Copies the text of an identical PDF converted before, returns true if the job was served from the cache
+    boolean serveFromCache(Job job) {
+        if (cache == null) {
+            return false;
+        }
+        try {
+            if (job.hash == null) {
+                job.hash = job.pdfBytes != null ? ConversionManifest.hashBytes(job.pdfBytes) : ConversionManifest.hashFile(job.file);
+            }
+        } catch (IOException e) {
+            return false; // the conversion reports the unreadable file
+        }
+        String key = cache.key(job.hash);
+        File cached = cache.lookup(key);
+        if (cached == null) {
+            cache.recordMiss();
+            return false;
+        }
+
+        startMetrics(job);
+        try {
+            copyCachedText(job, cached);
+        } catch (IOException e) {
+            // Deleted outside of the cache or unreadable, convert as usual
+            cache.recordMiss();
+            return false;
+        } finally {
+            cache.release(key); // pinned by lookup, so it was not evicted while copied
+        }
+        cache.recordHit(job.size);
+        job.pdfBytes = null;
+        job.fromCache = true;
+        converted(job);
+        return true;
+    }
+
+    private void copyCachedText(Job job, File cached) throws IOException {
+        // Entries are plain UTF-8, bytes can only be copied as they are if TXT files are written that way too
+        if (container == null && !options.isGzip() && options.getCharset().equals(StandardCharsets.UTF_8)) {
+            Path txtPath = job.txtFile.toPath();
+            Files.createDirectories(txtPath.getParent());
+            // Link or copy next to the target and rename, like TextFileWriter, so the TXT file never appears
+            // half-written or goes missing, and an earlier one stays in place if this fails
+            Path tempPath = txtPath.resolveSibling("." + txtPath.getFileName() + ".tmp");
+            try {
+                if (options.isCacheHardLink()) {
+                    try {
+                        Files.deleteIfExists(tempPath);
+                        Files.createLink(tempPath, cached.toPath());
+                        Files.move(tempPath, txtPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        return;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // Different file system, copy instead
+                    }
+                }
+                Files.copy(cached.toPath(), tempPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempPath, txtPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                // Also left behind when the target already was a link to the same entry, the move does nothing then
+                Files.deleteIfExists(tempPath);
+            }
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(cached.toPath(), StandardCharsets.UTF_8);
+             Writer writer = openOutput(job)) {
+            reader.transferTo(writer);
+            commitOutput(job);
+        }
+    }
+
+    // Starts a cache entry for the text of a job, null if there is no cache or the entry cannot be created
+    ExtractionCache.Entry newCacheEntry(Job job) {
+        if (cache == null || job.hash == null) {
+            return null;
+        }
+        try {
+            return cache.newEntry(cache.key(job.hash));
+        } catch (IOException e) {
+            return null; // a full or read-only cache directory must not fail the conversion
+        }
+    }
+
+    // Adds text extracted in pipeline mode to the cache
+    void cacheText(Job job, String text) {
+        ExtractionCache.Entry entry = newCacheEntry(job);
+        if (entry == null) {
+            return;
+        }
+        try {
+            entry.write(text);
+        } catch (IOException e) {
+            entry.discard();
+            return;
+        }
+        commitCacheEntry(job, entry);
+    }
+
+    void commitCacheEntry(Job job, ExtractionCache.Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        try {
+            entry.commit();
+        } catch (IOException e) {
+            entry.discard();
+            err.println("Failed to add file to the extraction cache: " + job.displayName);
+        }
+    }
+
+    // Checks the quarantine list and, in incremental mode, the manifest. Returns true if the job was skipped
+    boolean skipIfNotNeeded(Job job) {
+        if (quarantine != null && quarantine.contains(job.file.getAbsolutePath(), job.size, job.lastModified)) {
+            out.println("Skipped quarantined file: " + job.displayName);
+            countQuarantined.incrementAndGet();
+            notifyListener(job, ConversionResult.Status.SKIPPED, null);
+            release(job);
+            return true;
+        }
+        if (manifest == null) {
+            return false;
+        }
+        try {
+            job.hash = options.isHashContents() ? ConversionManifest.hashFile(job.file) : null;
+        } catch (IOException e) {
+            failed(job, "Error converting file: " + job.displayName, e);
+            return true;
+        }
+        boolean outputExists = container != null ? container.contains(containerEntryName(job))
+                : job.txtFile.exists() && (!options.isPageIndex() || PageIndex.indexFile(job.txtFile).exists());
+        if (outputExists && manifest.isUnchanged(job.file.getAbsolutePath(), job.size, job.lastModified, job.hash)) {
+            countSkipped.incrementAndGet();
+            notifyListener(job, ConversionResult.Status.SKIPPED, null);
+            release(job);
+            return true;
+        }
+        return false;
+    }
+
+    // Starts the clock of a job, if a report was requested or results are passed to a listener
+    void startMetrics(Job job) {
+        if ((report != null || resultListener != null) && job.metrics == null) {
+            job.metrics = new RunReport.FileMetrics(job.displayName, job.size);
+            job.metrics.attrNanos = job.attrNanos;
+            job.startNanos = System.nanoTime();
+        }
+    }
+
+    // Loads the PDF from disk, or from the bytes prefetched by the pipeline
+    // The time budget of the job starts here, and is checked again once the document is loaded.
+    // The watchdog interrupts the loading and extraction once it is spent, see stopWatch
+    PDDocument load(Job job) throws IOException {
+        startMetrics(job);
+        job.deadlineNanos = BudgetedTextStripper.deadline(options.getFileTimeoutMillis());
+        if (watchdog != null) {
+            job.watch = watchdog.watch(job.deadlineNanos, () -> failed(job, "Error converting file: " + job.displayName,
+                    new BudgetedTextStripper.BudgetExceededException("Time budget exceeded, gave up waiting for PDFBox")));
+        }
+        long loadStart = job.metrics != null ? System.nanoTime() : 0;
+        PDDocument document = job.pdfBytes != null
+                ? PDDocument.load(job.pdfBytes, "", null, null, memoryUsageSetting(options, job.size))
+                : PDDocument.load(job.file, memoryUsageSetting(options, job.size));
+        if (pageRangeExtractor == null) {
+            job.pdfBytes = null; // let the prefetched bytes go as soon as they are parsed
+        }
+        if (job.metrics != null) {
+            job.metrics.loadNanos = System.nanoTime() - loadStart;
+            job.metrics.pages = document.getNumberOfPages();
+        }
+        job.pages = document.getNumberOfPages();
+        if (options.isPageIndex()) {
+            job.pageIndex = new PageIndex(job.pages);
+        }
+        try {
+            checkBudget(options, document, job.deadlineNanos);
+        } catch (IOException e) {
+            document.close();
+            throw e;
+        }
+        return document;
+    }
+
+    // Called by the worker once the document of a job is extracted or has failed, clears the watchdog's interrupt.
+    // Returns false if the watchdog gave up on the job meanwhile, which is then reported as failed already
+    boolean stopWatch(Job job) {
+        return job.watch == null || !job.watch.end();
+    }
+
+    // Throws BudgetExceededException if a loaded document has too many pages or its time is already up
+    static void checkBudget(ConversionOptions options, PDDocument document, long deadlineNanos) throws IOException {
+        if (options.getMaxPages() > 0 && document.getNumberOfPages() > options.getMaxPages()) {
+            throw new BudgetedTextStripper.BudgetExceededException("Page budget exceeded (" + document.getNumberOfPages() + " pages)");
+        }
+        BudgetedTextStripper.checkBudget(deadlineNanos);
+    }
+
+    // Creates the TXT file (and its folder) as a temp file, wrapped for timing if a report was requested,
+    // or a new entry in the container file in container mode
+    Writer openOutput(Job job) throws IOException {
+        if (container != null) {
+            return container.openEntry(containerEntryName(job), job.metrics);
+        }
+        Files.createDirectories(job.txtFile.getParentFile().toPath());
+        // The old file is replaced by a rename on commit, never truncated: it may be a hard link to a cache entry (--cache-link)
+        job.output = new TextFileWriter(job.txtFile, options.getCharset(), options.getOutputBufferSize(), options.isGzip(), options.getGzipLevel(), job.pageIndex);
+        return job.metrics != null ? new RunReport.TimingWriter(job.output, job.metrics) : job.output;
+    }
+
+    // Publishes the TXT file once its text is complete, closing the writer of openOutput without a commit discards it
+    void commitOutput(Job job) throws IOException {
+        if (job.output == null) {
+            return; // container entries are appended on close
+        }
+        long start = job.metrics != null ? System.nanoTime() : 0;
+        job.output.commit();
+        if (job.metrics != null) {
+            job.metrics.writeNanos += System.nanoTime() - start;
+        }
+    }
+
+    // Path relative to source with '/' separators, so that container indexes are portable
+    private static String containerEntryName(Job job) {
+        return job.displayName.replace(File.separatorChar, '/');
+    }
+
+    // Streams the text of the document into writer, with this thread's stripper
+    void extract(Job job, PDDocument document, Writer writer) throws IOException {
+        long extractStart = job.metrics != null ? System.nanoTime() : 0;
+        long writeBefore = job.metrics != null ? job.metrics.writeNanos : 0;
+        int pageCount = document.getNumberOfPages();
+        if (pageRangeExtractor != null && pageCount >= options.getPageSplitThreshold()) {
+            // Each range opens its own handle, from the prefetched bytes in pipeline mode
+            byte[] pdfBytes = job.pdfBytes;
+            MemoryUsageSetting memoryUsage = memoryUsageSetting(options, job.size);
+            PageRangeExtractor.DocumentLoader loader = pdfBytes != null
+                    ? () -> PDDocument.load(pdfBytes, "", null, null, memoryUsage)
+                    : () -> PDDocument.load(job.file, memoryUsage);
+            pageRangeExtractor.extract(loader, pageCount, options.getPagesPerRange(), writer, job.deadlineNanos, job.pageIndex);
+        } else if (cpuPermits != null) {
+            // Text extraction is CPU-bound, more of them at once than cores only adds contention
+            try {
+                cpuPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to extract: " + job.displayName);
+            }
+            // Virtual threads are not reused, so the strippers are shared through a pool rather than per thread
+            // (never more of them than permits)
+            BudgetedTextStripper stripper = idleStrippers.poll();
+            try {
+                if (stripper == null) {
+                    stripper = new BudgetedTextStripper();
+                }
+                stripper.setDeadline(job.deadlineNanos);
+                stripper.setPageListener(job.pageIndex);
+                writeText(document, writer, stripper);
+            } finally {
+                if (stripper != null) {
+                    idleStrippers.add(stripper);
+                }
+                cpuPermits.release();
+            }
+        } else {
+            BudgetedTextStripper stripper = strippers.get();
+            stripper.setDeadline(job.deadlineNanos);
+            stripper.setPageListener(job.pageIndex);
+            writeText(document, writer, stripper);
+        }
+        if (job.metrics != null) {
+            // Text extraction is what remains after taking out the time spent writing
+            job.metrics.extractNanos = System.nanoTime() - extractStart - (job.metrics.writeNanos - writeBefore);
+        }
+    }
+
+    void converted(Job job) {
+        if (!job.finished.compareAndSet(false, true)) {
+            return; // given up on by the watchdog
+        }
+        out.println((job.fromCache ? "Converted file (cached): " : "Converted file: ") + job.displayName);
+        countConverted.incrementAndGet();
+        if (job.metrics != null) {
+            job.metrics.status = job.fromCache ? "cached" : "converted";
+            addMetrics(job);
+        }
+        notifyListener(job, job.fromCache ? ConversionResult.Status.CACHED : ConversionResult.Status.CONVERTED, null);
+
+        if (manifest != null) {
+            try {
+                manifest.record(job.file.getAbsolutePath(), job.size, job.lastModified, job.hash);
+            } catch (IOException e) {
+                err.println("Failed to update manifest for file: " + job.displayName);
+            }
+        }
+        release(job);
+    }
+
+    void failed(Job job, String message, Throwable cause) {
+        if (!job.finished.compareAndSet(false, true)) {
+            return; // given up on by the watchdog
+        }
+        err.println(message);
+        countFailed.incrementAndGet();
+        if (cause instanceof BudgetedTextStripper.BudgetExceededException) {
+            quarantine(job, cause.getMessage());
+        } else if (job.watch != null && job.watch.isExpired()) {
+            // Interrupted by the watchdog, the exception depends on where
+            quarantine(job, "Time budget exceeded");
+        }
+        addMetrics(job);
+        notifyListener(job, ConversionResult.Status.FAILED, cause);
+        release(job);
+    }
+
+    private void notifyListener(Job job, ConversionResult.Status status, Throwable cause) {
+        if (resultListener == null) {
+            return;
+        }
+        try {
+            resultListener.accept(new ConversionResult(job.file, status, job.metrics, cause));
+        } catch (RuntimeException e) {
+            // A failing listener must not fail the conversion or stop the workers
+            err.println("Result listener failed for file: " + job.displayName);
+        }
+    }
+
+    // Records a file over budget so that later runs skip it
+    private void quarantine(Job job, String reason) {
+        err.println(reason + ", quarantined: " + job.displayName);
+        countOverBudget.incrementAndGet();
+        try {
+            quarantine.add(job.file.getAbsolutePath(), job.size, job.lastModified, reason);
+        } catch (IOException e) {
+            err.println("Failed to update quarantine list for file: " + job.displayName);
+        }
+    }
+
+    private void release(Job job) {
+        if (inFlightFiles != null) {
+            inFlightFiles.remove(job.file);
+        }
+    }
+
+    private void addMetrics(Job job) {
+        if (job.metrics != null) {
+            job.metrics.totalNanos = System.nanoTime() - job.startNanos;
+            if (report != null) {
+                report.add(job.metrics);
+            }
+        }
+    }
+
+    // Buffering for a document of the given file size, following the --memory options
+    static MemoryUsageSetting memoryUsageSetting(ConversionOptions options, long fileSize) {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        ConversionOptions.MemoryMode mode = options.getMemoryMode();
+        if (mode == ConversionOptions.MemoryMode.AUTO) {
+            mode = resolveMemoryMode(fileSize, maxHeap, options.getMaxInFlight());
+        }
+
+        MemoryUsageSetting setting;
+        switch (mode) {
+            case MIXED:
+                long heapCap = options.getHeapCap() > 0 ? options.getHeapCap() : heapBudgetPerDocument(maxHeap, options.getMaxInFlight()) / 2;
+                setting = MemoryUsageSetting.setupMixed(heapCap);
+                break;
+            case TEMP:
+                setting = MemoryUsageSetting.setupTempFileOnly();
+                break;
+            default:
+                return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+        return options.getScratchDir() != null ? setting.setTempDir(options.getScratchDir()) : setting;
+    }
+
+    // A parsed document takes several times its file size on the heap
+    static final int HEAP_SIZE_FACTOR = 8;
+
+    // Heap for small files, mixed while the file fits in its share of the heap, scratch file only beyond that
+    static ConversionOptions.MemoryMode resolveMemoryMode(long fileSize, long maxHeap, int maxInFlight) {
+        long budget = heapBudgetPerDocument(maxHeap, maxInFlight);
+        if (fileSize * HEAP_SIZE_FACTOR <= budget) {
+            return ConversionOptions.MemoryMode.HEAP;
+        } else if (fileSize <= budget) {
+            return ConversionOptions.MemoryMode.MIXED;
+        }
+        return ConversionOptions.MemoryMode.TEMP;
+    }
+
+    // Half the max heap, shared by the documents that can be in flight at once
+    private static long heapBudgetPerDocument(long maxHeap, int maxInFlight) {
+        return maxHeap / 2 / maxInFlight;
+    }
+
+    // Streams the text of the PDF into writer page by page, instead of building the whole text as one String
+    static void writeText(PDDocument document, Writer writer, PDFTextStripper stripper) throws IOException {
+        stripper.writeText(document, writer);
+    }
+
+    private void writeReport() {
+        if (report != null) {
+            File reportFile = options.getReportFile();
+            try {
+                report.write(reportFile, countScanned, countMatching.get(), countConverted.get(), countSkipped.get(), countFailed.get());
+                out.println("Run report saved to: " + reportFile.getAbsolutePath());
+            } catch (IOException e) {
+                err.println("Failed to write run report: " + reportFile.getAbsolutePath());
+            }
+        }
+    }
+
+    private void closeContainer() {
+        if (container != null) {
+            try {
+                container.close();
+            } catch (IOException e) {
+                err.println("Failed to close container file: " + options.getContainerFile().getAbsolutePath());
+            }
+        }
+    }
+
+    private void closeQuarantine() {
+        if (quarantine != null) {
+            try {
+                quarantine.close();
+            } catch (IOException e) {
+                err.println("Failed to close quarantine list: " + quarantine.getFile().getAbsolutePath());
+            }
+        }
+    }
+
+    private void closeManifest() {
+        if (manifest != null) {
+            try {
+                manifest.close();
+            } catch (IOException e) {
+                err.println("Failed to compact manifest: " + manifest.getFile().getAbsolutePath());
+            }
+        }
+    }
+
+    static void awaitWorkers(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Keep waiting, large documents can take a while
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() on Java 21+, looked up at runtime since the tool targets Java 11. Null before Java 21
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static ThreadFactory workerThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,163 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces the time budget of a document (--timeout) where the page checks of BudgetedTextStripper
+ * cannot: while PDFBox loads it, and inside a single slow page. Once the deadline passes, the worker
+ * is interrupted, which stops the stripper at its next check and aborts interruptible waits and I/O.
+ *
+ * PDFBox does not look at interrupts while it parses, so a worker that still has not returned
+ * GRACE_MILLIS later is given up on: the watch's onAbandon reports the document, and waiting for the
+ * tasks of its executor (see Tasks) no longer waits for that worker. Its thread stays busy until
+ * PDFBox returns, so a stuck document costs one thread for the rest of the run instead of the run.
+ */
+class BudgetWatchdog implements AutoCloseable {
+    static final long GRACE_MILLIS = 2000;
+    static final long AWAIT_POLL_MILLIS = 200;
+
+    private static final ThreadLocal<Tasks> currentTasks = new ThreadLocal<>();
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final long graceMillis;
+
+    BudgetWatchdog() {
+        this(GRACE_MILLIS);
+    }
+
+    BudgetWatchdog(long graceMillis) {
+        this.graceMillis = graceMillis;
+        this.timer = new ScheduledThreadPoolExecutor(1, BatchConverter.workerThreadFactory("pdf2txt-watchdog-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    // Watches the current thread until end() is called on the returned watch. onAbandon, if not null,
+    // runs on the watchdog thread once the worker has not returned graceMillis after its interrupt
+    Watch watch(long deadlineNanos, Runnable onAbandon) {
+        Watch watch = new Watch(Thread.currentThread(), currentTasks.get(), onAbandon);
+        watch.schedule(watch::expire, deadlineNanos - System.nanoTime());
+        return watch;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    // One document under a time budget, ended by the worker that started it
+    class Watch {
+        private final Thread worker;
+        private final Tasks tasks; // null unless the worker runs a tracked task
+        private final Runnable onAbandon;
+        private ScheduledFuture<?> pending;
+        private boolean ended;
+        private boolean expired;
+        private boolean abandoned;
+
+        private Watch(Thread worker, Tasks tasks, Runnable onAbandon) {
+            this.worker = worker;
+            this.tasks = tasks;
+            this.onAbandon = onAbandon;
+        }
+
+        private synchronized void schedule(Runnable action, long delayNanos) {
+            if (!ended) {
+                pending = timer.schedule(action, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private synchronized void expire() {
+            if (ended) {
+                return;
+            }
+            expired = true;
+            worker.interrupt();
+            if (onAbandon != null) {
+                schedule(this::abandon, TimeUnit.MILLISECONDS.toNanos(graceMillis));
+            }
+        }
+
+        private void abandon() {
+            synchronized (this) {
+                if (ended) {
+                    return;
+                }
+                abandoned = true;
+                if (tasks != null) {
+                    tasks.abandoned.incrementAndGet();
+                }
+            }
+            onAbandon.run();
+        }
+
+        // True once the deadline has passed and the worker was interrupted
+        synchronized boolean isExpired() {
+            return expired;
+        }
+
+        // Stops watching and clears the interrupt sent to the worker, if any. Returns true if the
+        // document was given up on meanwhile, its failure has been reported already then
+        boolean end() {
+            boolean wasAbandoned;
+            synchronized (this) {
+                if (!ended) {
+                    ended = true;
+                    if (pending != null) {
+                        pending.cancel(false);
+                    }
+                    if (abandoned && tasks != null) {
+                        tasks.abandoned.decrementAndGet();
+                    }
+                }
+                wasAbandoned = abandoned;
+            }
+            if (expired && Thread.currentThread() == worker) {
+                Thread.interrupted(); // the worker goes on to its next document
+            }
+            return wasAbandoned;
+        }
+    }
+
+    // The tasks run on one executor, so that waiting for them can leave out the workers given up on
+    static class Tasks {
+        private final AtomicInteger running = new AtomicInteger(); // submitted and not returned yet
+        private final AtomicInteger abandoned = new AtomicInteger(); // of those, given up on by a watchdog
+
+        void execute(ExecutorService executor, Runnable task) {
+            running.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    currentTasks.set(this);
+                    try {
+                        task.run();
+                    } finally {
+                        currentTasks.remove();
+                        running.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                running.decrementAndGet();
+                throw e;
+            }
+        }
+
+        // Like BatchConverter.awaitWorkers, but returns once the only tasks left are given up on.
+        // Their threads are daemons, so they do not keep the JVM alive either
+        void await(ExecutorService executor) {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(AWAIT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    int stuck = abandoned.get();
+                    if (stuck > 0 && running.get() == stuck) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
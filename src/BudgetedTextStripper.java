@@ -0,0 +1,125 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * PDFTextStripper that gives up at the next page boundary once the time budget of the current
+ * document has run out, or once its thread is interrupted, instead of spinning on to the last page.
+ * It can also report where each page starts in its output (--page-index).
+ */
+class BudgetedTextStripper extends PDFTextStripper {
+    private long deadlineNanos; // 0 → no time budget
+    private PageListener pageListener; // null unless page offsets are recorded
+    private CountingWriter counter; // wraps the output while a listener is set
+
+    // Told the char offset in the output at which each page starts
+    interface PageListener {
+        void pageStarted(int pageNo, long charOffset);
+    }
+
+    // Thrown when a document goes over its time or page budget (--timeout, --max-pages)
+    static class BudgetExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException(String message) {
+            super(message);
+        }
+    }
+
+    BudgetedTextStripper() throws IOException {
+        super();
+    }
+
+    // Deadline in System.nanoTime() terms for the next writeText, 0 for none
+    void setDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    // Listener for the pages of the next writeText, null for none
+    void setPageListener(PageListener pageListener) {
+        this.pageListener = pageListener;
+    }
+
+    @Override
+    public void writeText(PDDocument document, Writer output) throws IOException {
+        if (pageListener == null) {
+            super.writeText(document, output);
+            return;
+        }
+        counter = new CountingWriter(output);
+        try {
+            super.writeText(document, counter);
+        } finally {
+            counter = null;
+        }
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        checkBudget(deadlineNanos);
+        if (counter != null) {
+            pageListener.pageStarted(getCurrentPageNo(), counter.count);
+        }
+        super.startPage(page);
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        super.endPage(page);
+        checkBudget(deadlineNanos);
+    }
+
+    static void checkBudget(long deadlineNanos) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Extraction interrupted");
+        }
+        if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw new BudgetExceededException("Time budget exceeded");
+        }
+    }
+
+    // Deadline for a document starting now, 0 if there is no time budget
+    static long deadline(long budgetMillis) {
+        if (budgetMillis <= 0) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000;
+        return deadline != 0 ? deadline : 1;
+    }
+
+    // Counts the chars written so far, the stripper writes a page's text only after startPage
+    private static class CountingWriter extends Writer {
+        private final Writer out;
+        long count = 0;
+
+        CountingWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
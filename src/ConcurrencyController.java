@@ -0,0 +1,248 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.ListenerNotFoundException;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adjusts the number of documents converted at once (--adaptive) between 1 and --max-in-flight.
+ * Once per interval it compares the pages converted per second with the interval before: it ramps up
+ * while throughput keeps improving (doubling at first, then one at a time), steps back when a step up
+ * did not pay off, and halves the limit when the heap stays full after garbage collection or GC takes
+ * too much of the time. Every decision is kept for the run report.
+ *
+ * A document is also held back while its estimated heap (HEAP_SIZE_FACTOR times its file size) does not
+ * fit in the heap left after the last GC, so that a few large scans never run together under the limit.
+ */
+class ConcurrencyController implements AutoCloseable {
+    static final long DEFAULT_INTERVAL_MILLIS = 1000;
+    static final double HIGH_HEAP = 0.85; // share of the max heap still used after GC
+    static final double HIGH_GC = 0.20; // share of the interval spent in GC pauses
+    static final double MIN_GAIN = 0.05; // throughput gain that counts as an improvement
+    static final int PROBE_AFTER = 5; // intervals held before trying one more document again
+    private static final int MAX_DECISIONS = 1000; // kept for the report
+
+    private final int maxLimit;
+    private final long maxHeap;
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService timer;
+    private final Set<String> heapPools = new HashSet<>();
+    private final List<NotificationEmitter> collectors = new ArrayList<>();
+    private final NotificationListener gcListener = this::onGarbageCollection;
+
+    // Updated on the GC notification thread
+    private final AtomicLong gcPauseNanos = new AtomicLong();
+    private volatile long heapAfterGc = -1; // -1 until the first GC
+
+    // Guarded by this
+    private int limit = 1;
+    private int running = 0;
+    private long admittedSinceGc = 0; // estimated heap of the documents started since the last GC
+    private boolean saturated = false; // a document waited for the limit in this interval
+    private boolean slowStart = true;
+    private String lastAction = "start";
+    private int stepFrom = 1; // limit before the last ramp up
+    private int holds = 0;
+    private double lastThroughput = 0;
+    private long units = 0; // pages of the finished documents, at least one per document
+    private long windowUnits = 0;
+    private long windowStartNanos = startNanos;
+    private long windowGcNanos = 0;
+    private int lowestLimit = 1;
+    private int highestLimit = 1;
+    private int changes = 0;
+    private int droppedDecisions = 0;
+    private final List<String> decisions = new ArrayList<>();
+
+    ConcurrencyController(int maxLimit, long intervalMillis) {
+        this.maxLimit = maxLimit;
+        this.maxHeap = Runtime.getRuntime().maxMemory();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(gcListener, null, null);
+                collectors.add((NotificationEmitter) collector);
+            }
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(BatchConverter.workerThreadFactory("pdf2txt-controller-"));
+        if (intervalMillis > 0) {
+            timer.scheduleAtFixedRate(this::adjust, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Blocks until the limit allows one more document and its estimated heap fits
+    synchronized void acquire(long fileSize) throws InterruptedException {
+        long estimate = Math.min(fileSize * BatchConverter.HEAP_SIZE_FACTOR, maxHeap);
+        while (running >= limit || (running > 0 && admittedSinceGc + estimate > freeHeap())) {
+            if (running >= limit) {
+                saturated = true;
+            }
+            wait();
+        }
+        running++;
+        admittedSinceGc += estimate;
+    }
+
+    // A document is done, pages is 0 for documents that were skipped or failed before loading
+    synchronized void release(int pages) {
+        running--;
+        units += Math.max(1, pages);
+        notifyAll();
+    }
+
+    // Heap that is neither live after the last GC nor kept as headroom for the collector
+    private long freeHeap() {
+        return (long) (maxHeap * HIGH_HEAP) - usedHeap();
+    }
+
+    private long usedHeap() {
+        long afterGc = heapAfterGc;
+        return afterGc >= 0 ? afterGc : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private void onGarbageCollection(Notification notification, Object handback) {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        // Concurrent cycles (G1, ZGC, Shenandoah) run next to the workers, only pauses take time from them
+        String name = info.getGcName();
+        if (!name.contains("Concurrent") && !name.contains("Cycles")) {
+            gcPauseNanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()));
+        }
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPools.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        heapAfterGc = used;
+        synchronized (this) {
+            // The documents started so far now show in the heap used after GC
+            admittedSinceGc = 0;
+            notifyAll();
+        }
+    }
+
+    // Called by the timer once per interval
+    synchronized void adjust() {
+        long now = System.nanoTime();
+        double seconds = (now - windowStartNanos) / 1e9;
+        long gcNanos = gcPauseNanos.get();
+        double gcShare = (gcNanos - windowGcNanos) / 1e9 / seconds;
+        double heapShare = usedHeap() / (double) maxHeap;
+        if (units == windowUnits && heapShare <= HIGH_HEAP && gcShare <= HIGH_GC) {
+            return; // no document finished yet, keep measuring
+        }
+        double throughput = (units - windowUnits) / seconds;
+        String action = decide(heapShare, gcShare, throughput);
+        record(now, action, heapShare, gcShare, throughput);
+        windowStartNanos = now;
+        windowUnits = units;
+        windowGcNanos = gcNanos;
+        notifyAll();
+    }
+
+    // Sets the new limit from the measurements of one interval and returns what was done
+    synchronized String decide(double heapShare, double gcShare, double throughput) {
+        boolean improved = throughput > lastThroughput * (1 + MIN_GAIN);
+        String action;
+        if (heapShare > HIGH_HEAP || gcShare > HIGH_GC) {
+            setLimit(Math.max(1, limit / 2));
+            slowStart = false;
+            action = "back off";
+        } else if (lastAction.equals("ramp up") && !improved) {
+            setLimit(stepFrom);
+            slowStart = false;
+            action = "step back";
+        } else if ((saturated || running >= limit) && limit < maxLimit && (lastAction.equals("ramp up") || slowStart || holds >= PROBE_AFTER)) {
+            stepFrom = limit;
+            setLimit(slowStart ? Math.min(maxLimit, limit * 2) : limit + 1);
+            action = "ramp up";
+        } else {
+            action = "hold";
+        }
+        holds = action.equals("hold") ? holds + 1 : 0;
+        lastAction = action;
+        lastThroughput = throughput;
+        saturated = running >= limit;
+        return action;
+    }
+
+    private void setLimit(int newLimit) {
+        if (newLimit != limit) {
+            changes++;
+        }
+        limit = newLimit;
+        lowestLimit = Math.min(lowestLimit, limit);
+        highestLimit = Math.max(highestLimit, limit);
+    }
+
+    private void record(long now, String action, double heapShare, double gcShare, double throughput) {
+        if (decisions.size() == MAX_DECISIONS) {
+            droppedDecisions++;
+            decisions.remove(0);
+        }
+        decisions.add(String.format(Locale.ROOT,
+                "{\"atMs\": %d, \"action\": \"%s\", \"limit\": %d, \"running\": %d, \"heapAfterGc\": %.2f, \"gcTime\": %.3f, \"pagesPerSec\": %.1f}",
+                TimeUnit.NANOSECONDS.toMillis(now - startNanos), action, limit, running, heapShare, gcShare, throughput));
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    // One line for the summary
+    synchronized String describe() {
+        return "limit " + limit + " at the end (ranged " + lowestLimit + "-" + highestLimit + " of max " + maxLimit + "), " +
+                changes + " change(s) in " + (decisions.size() + droppedDecisions) + " decision(s)";
+    }
+
+    synchronized String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"maxLimit\": ").append(maxLimit).append(", \"finalLimit\": ").append(limit)
+                .append(", \"lowestLimit\": ").append(lowestLimit).append(", \"highestLimit\": ").append(highestLimit)
+                .append(", \"changes\": ").append(changes).append(", \"droppedDecisions\": ").append(droppedDecisions)
+                .append(", \"decisions\": [");
+        String separator = "\n    ";
+        for (String decision : decisions) {
+            json.append(separator).append(decision);
+            separator = ",\n    ";
+        }
+        json.append(decisions.isEmpty() ? "]}" : "\n  ]}");
+        return json.toString();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        for (NotificationEmitter collector : collectors) {
+            try {
+                collector.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException e) {
+                // Already removed
+            }
+        }
+    }
+}
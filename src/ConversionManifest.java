@@ -0,0 +1,181 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers which PDFs were already converted into a destination directory, so that unchanged
+ * files can be skipped on the next run. Entries are appended to the manifest file as soon as a
+ * file is converted, so a crashed run keeps everything it finished. The file is compacted on close,
+ * and while open once more than half of its lines are outdated, so that it does not grow without end
+ * over a long watch session in which the same files are converted again and again.
+ *
+ * Line format: size TAB lastModifiedMillis TAB sha256 (or '-') TAB source path
+ */
+class ConversionManifest implements AutoCloseable {
+    static final String FILE_NAME = ".pdf2txt-manifest";
+    static final int MIN_OUTDATED_LINES = 1000; // below this many, compacting is not worth rewriting the file
+
+    private final File manifestFile;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private BufferedWriter appender;
+    private long lines; // in the file, including outdated ones
+
+    static class Entry {
+        final long size;
+        final long lastModified;
+        final String hash; // null if hashing was off when the entry was written
+
+        Entry(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    ConversionManifest(File dest) throws IOException {
+        this(dest, FILE_NAME);
+    }
+
+    // A manifest under another name, e.g. one per shard (--shard)
+    ConversionManifest(File dest, String fileName) throws IOException {
+        manifestFile = new File(dest, fileName);
+        boolean endsWithPartialLine = false;
+        if (manifestFile.exists()) {
+            load();
+            endsWithPartialLine = !endsWithNewline(manifestFile);
+        }
+        appender = new BufferedWriter(new FileWriter(manifestFile, StandardCharsets.UTF_8, true));
+        if (endsWithPartialLine) {
+            appender.write("\n"); // don't glue new entries onto a line cut off by a crash
+        }
+    }
+
+    File getFile() {
+        return manifestFile;
+    }
+
+    static boolean endsWithNewline(File file) throws IOException {
+        if (file.length() == 0) {
+            return true;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    private void load() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                String[] fields = line.split("\t", 4);
+                // Skip lines cut off by a crash in the middle of an append
+                if (fields.length < 4) {
+                    continue;
+                }
+                try {
+                    String hash = fields[2].equals("-") ? null : fields[2];
+                    // Later lines win, they were written by later conversions
+                    entries.put(fields[3], new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), hash));
+                } catch (NumberFormatException e) {
+                    // Corrupted line, the file will simply be converted again
+                }
+            }
+        }
+    }
+
+    // Checks if the file was converted before with the same size, modified date and (if given) content hash
+    synchronized boolean isUnchanged(String path, long size, long lastModified, String hash) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+            return false;
+        }
+        return hash == null || hash.equals(entry.hash);
+    }
+
+    synchronized void record(String path, long size, long lastModified, String hash) throws IOException {
+        entries.put(path, new Entry(size, lastModified, hash));
+        appender.write(formatLine(path, size, lastModified, hash));
+        appender.flush(); // survive a crash of the run
+        lines++;
+        if (lines - entries.size() > Math.max(entries.size(), MIN_OUTDATED_LINES)) {
+            appender.close();
+            try {
+                compact();
+            } finally {
+                // Appended to again even if the compaction failed, the old manifest is still in place then
+                appender = new BufferedWriter(new FileWriter(manifestFile, StandardCharsets.UTF_8, true));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        appender.close();
+        compact();
+    }
+
+    // Rewrites the manifest with one line per file, replacing the old one atomically
+    private void compact() throws IOException {
+        File tmpFile = new File(manifestFile.getParentFile(), manifestFile.getName() + ".tmp");
+        try (BufferedWriter bw = Files.newBufferedWriter(tmpFile.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                bw.write(formatLine(e.getKey(), entry.size, entry.lastModified, entry.hash));
+            }
+        }
+        Files.move(tmpFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lines = entries.size();
+    }
+
+    private static String formatLine(String path, long size, long lastModified, String hash) {
+        return size + "\t" + lastModified + "\t" + (hash == null ? "-" : hash) + "\t" + path + "\n";
+    }
+
+    // SHA-256 of the file contents as a hex string
+    static String hashFile(File file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    // SHA-256 of bytes already in memory (e.g. prefetched by the pipeline) as a hex string
+    static String hashBytes(byte[] bytes) {
+        return toHex(sha256().digest(bytes));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
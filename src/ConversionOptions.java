@@ -0,0 +1,496 @@
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * Tuning options for a conversion run. Defaults match the behavior of the plain CLI call.
+ */
+public class ConversionOptions {
+    // Default documents in flight per --threads on virtual threads
+    static final int VIRTUAL_IN_FLIGHT_FACTOR = 4;
+
+    // How PDFBox buffers a parsed document: on the heap, heap up to a cap then a scratch file, or scratch file only
+    public enum MemoryMode { AUTO, HEAP, MIXED, TEMP }
+
+    // Order in which the matching files of a scan are converted: as listed, or by file size
+    public enum Schedule { FIFO, LARGEST_FIRST, SMALLEST_FIRST }
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxInFlight = 0; // 0 → same as threads, 4x that on virtual threads
+    private boolean incremental = false;
+    private boolean hashContents = false;
+    private boolean recursive = false;
+    private File reportFile = null;
+    private MemoryMode memoryMode = MemoryMode.AUTO;
+    private long heapCap = 0; // 0 → chosen from max heap and max documents in flight
+    private File scratchDir = null; // null → java.io.tmpdir
+    private File containerFile = null; // null → one TXT file per PDF
+    private boolean gzip = false;
+    private long rollSize = 0; // 0 → never roll over
+    private int pageSplitThreshold = 0; // 0 → never split a document
+    private int pagesPerRange = 50;
+    private boolean pipeline = false;
+    private int ioThreads = 2;
+    private int queueCapacity = 0; // 0 → same as threads
+    private boolean watch = false;
+    private long debounceMillis = 500;
+    private long reconcileSeconds = 300;
+    private int servePort = -1; // -1 → no server, convert the source directory
+    private long maxRequestSize = 256L * 1024 * 1024;
+    private File cacheDir = null; // null → no extraction cache
+    private long cacheSize = 1024L * 1024 * 1024;
+    private boolean cacheKeyOnSettings = false;
+    private boolean cacheHardLink = false;
+    private boolean quiet = false;
+    private boolean virtualThreads = false;
+    private long fileTimeoutMillis = 0; // 0 → no time budget
+    private int maxPages = 0; // 0 → no page budget
+    private Charset charset = StandardCharsets.UTF_8;
+    private int gzipLevel = Deflater.DEFAULT_COMPRESSION;
+    private int outputBufferSize = 64 * 1024;
+    private boolean adaptive = false;
+    private Schedule schedule = Schedule.FIFO;
+    private boolean pageIndex = false;
+    private int shardIndex = 0; // 0 → any shard not yet converted
+    private int shardCount = 0; // 0 → no sharding
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Number of worker threads converting documents in parallel
+    public ConversionOptions threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("\nNumber of threads must be at least 1, got: " + threads);
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    public int getMaxInFlight() {
+        if (maxInFlight > 0) {
+            return maxInFlight;
+        }
+        // Virtual threads keep more files loading while others are extracted
+        return virtualThreads ? threads * VIRTUAL_IN_FLIGHT_FACTOR : threads;
+    }
+
+    // Max number of documents queued or being converted at once (bounds heap usage)
+    public ConversionOptions maxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("\nMax documents in flight must be at least 1, got: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    // Skip files whose manifest entry in dest still matches their size and modified date
+    public ConversionOptions incremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    public boolean isHashContents() {
+        return hashContents;
+    }
+
+    // Also compare a content hash in incremental mode (reads every file once more)
+    public ConversionOptions hashContents(boolean hashContents) {
+        this.hashContents = hashContents;
+        return this;
+    }
+
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    // Also convert PDFs in subfolders of source, mirroring the folder structure under dest
+    public ConversionOptions recursive(boolean recursive) {
+        this.recursive = recursive;
+        return this;
+    }
+
+    public File getReportFile() {
+        return reportFile;
+    }
+
+    // Write per-file timings and a run summary as JSON to this file (null → no report)
+    public ConversionOptions reportFile(File reportFile) {
+        this.reportFile = reportFile;
+        return this;
+    }
+
+    public MemoryMode getMemoryMode() {
+        return memoryMode;
+    }
+
+    // AUTO picks HEAP, MIXED or TEMP per file, from its size relative to the max heap
+    public ConversionOptions memoryMode(MemoryMode memoryMode) {
+        this.memoryMode = memoryMode;
+        return this;
+    }
+
+    public long getHeapCap() {
+        return heapCap;
+    }
+
+    // Max heap bytes a document may use in MIXED mode before PDFBox spills to a scratch file
+    public ConversionOptions heapCap(long heapCap) {
+        if (heapCap < 1) {
+            throw new IllegalArgumentException("\nHeap cap must be at least 1 byte, got: " + heapCap);
+        }
+        this.heapCap = heapCap;
+        return this;
+    }
+
+    public File getScratchDir() {
+        return scratchDir;
+    }
+
+    // Directory for PDFBox scratch files in MIXED and TEMP mode
+    public ConversionOptions scratchDir(File scratchDir) {
+        this.scratchDir = scratchDir;
+        return this;
+    }
+
+    public boolean isPipeline() {
+        return pipeline;
+    }
+
+    // Split the conversion into read, convert and write stages with their own threads
+    public ConversionOptions pipeline(boolean pipeline) {
+        this.pipeline = pipeline;
+        return this;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    // Number of reader and of writer threads in pipeline mode
+    public ConversionOptions ioThreads(int ioThreads) {
+        if (ioThreads < 1) {
+            throw new IllegalArgumentException("\nNumber of I/O threads must be at least 1, got: " + ioThreads);
+        }
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity > 0 ? queueCapacity : threads;
+    }
+
+    // Max documents waiting in front of each pipeline stage
+    public ConversionOptions queueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("\nQueue size must be at least 1, got: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public File getContainerFile() {
+        return containerFile;
+    }
+
+    // Append all text to this one file plus an index, instead of one TXT file per PDF (null → TXT files)
+    public ConversionOptions containerFile(File containerFile) {
+        this.containerFile = containerFile;
+        return this;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    // Compress the output with gzip: TXT files become .txt.gz, or each container entry is compressed
+    public ConversionOptions gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    public long getRollSize() {
+        return rollSize;
+    }
+
+    // Start a new container part once the current one would grow past this many bytes
+    public ConversionOptions rollSize(long rollSize) {
+        if (rollSize < 1) {
+            throw new IllegalArgumentException("\nRoll size must be at least 1 byte, got: " + rollSize);
+        }
+        this.rollSize = rollSize;
+        return this;
+    }
+
+    public int getPageSplitThreshold() {
+        return pageSplitThreshold;
+    }
+
+    // Extract documents with at least this many pages in parallel page ranges (0 → off)
+    public ConversionOptions pageSplitThreshold(int pageSplitThreshold) {
+        if (pageSplitThreshold < 0) {
+            throw new IllegalArgumentException("\nPage split threshold cannot be negative, got: " + pageSplitThreshold);
+        }
+        this.pageSplitThreshold = pageSplitThreshold;
+        return this;
+    }
+
+    public int getPagesPerRange() {
+        return pagesPerRange;
+    }
+
+    // Number of pages extracted by one task when a document is split
+    public ConversionOptions pagesPerRange(int pagesPerRange) {
+        if (pagesPerRange < 1) {
+            throw new IllegalArgumentException("\nPages per range must be at least 1, got: " + pagesPerRange);
+        }
+        this.pagesPerRange = pagesPerRange;
+        return this;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    // Keep running after the first pass and convert new or modified PDFs as they appear
+    public ConversionOptions watch(boolean watch) {
+        this.watch = watch;
+        return this;
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    // How long a changed file's size and modified date must stay the same before it is converted
+    public ConversionOptions debounceMillis(long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("\nDebounce interval cannot be negative, got: " + debounceMillis);
+        }
+        this.debounceMillis = debounceMillis;
+        return this;
+    }
+
+    public long getReconcileSeconds() {
+        return reconcileSeconds;
+    }
+
+    // Interval of the full rescans that catch changes missed by the file system notifications (0 → off)
+    public ConversionOptions reconcileSeconds(long reconcileSeconds) {
+        if (reconcileSeconds < 0) {
+            throw new IllegalArgumentException("\nReconcile interval cannot be negative, got: " + reconcileSeconds);
+        }
+        this.reconcileSeconds = reconcileSeconds;
+        return this;
+    }
+
+    public int getServePort() {
+        return servePort;
+    }
+
+    // Run as a local HTTP conversion service on this port instead of converting a directory (0 → any free port)
+    public ConversionOptions servePort(int servePort) {
+        if (servePort < 0 || servePort > 65535) {
+            throw new IllegalArgumentException("\nPort must be between 0 and 65535, got: " + servePort);
+        }
+        this.servePort = servePort;
+        return this;
+    }
+
+    public long getMaxRequestSize() {
+        return maxRequestSize;
+    }
+
+    // Max size of a PDF posted to the server, larger ones are answered with 413
+    public ConversionOptions maxRequestSize(long maxRequestSize) {
+        if (maxRequestSize < 1) {
+            throw new IllegalArgumentException("\nMax request size must be at least 1 byte, got: " + maxRequestSize);
+        }
+        this.maxRequestSize = maxRequestSize;
+        return this;
+    }
+
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    // Reuse the text of byte-identical PDFs converted before, from a cache kept in this directory
+    public ConversionOptions cacheDir(File cacheDir) {
+        this.cacheDir = cacheDir;
+        return this;
+    }
+
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    // Max total size of the cached text, least recently used entries are evicted beyond it
+    public ConversionOptions cacheSize(long cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("\nCache size must be at least 1 byte, got: " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    public boolean isCacheKeyOnSettings() {
+        return cacheKeyOnSettings;
+    }
+
+    // Also key cache entries on the PDFBox version and text stripper settings
+    public ConversionOptions cacheKeyOnSettings(boolean cacheKeyOnSettings) {
+        this.cacheKeyOnSettings = cacheKeyOnSettings;
+        return this;
+    }
+
+    public boolean isCacheHardLink() {
+        return cacheHardLink;
+    }
+
+    // Hard-link cached text into dest instead of copying it (falls back to a copy across file systems)
+    public ConversionOptions cacheHardLink(boolean cacheHardLink) {
+        this.cacheHardLink = cacheHardLink;
+        return this;
+    }
+
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    // No progress output on the console, for use as a library
+    public ConversionOptions quiet(boolean quiet) {
+        this.quiet = quiet;
+        return this;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // A virtual thread per file (Java 21+), with at most --threads text extractions at once
+    public ConversionOptions virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    public long getFileTimeoutMillis() {
+        return fileTimeoutMillis;
+    }
+
+    // Time budget per file for loading and extracting, enforced by interrupting the worker (see BudgetWatchdog)
+    public ConversionOptions fileTimeoutMillis(long fileTimeoutMillis) {
+        if (fileTimeoutMillis < 1) {
+            throw new IllegalArgumentException("\nFile timeout must be positive, got: " + fileTimeoutMillis + " ms");
+        }
+        this.fileTimeoutMillis = fileTimeoutMillis;
+        return this;
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    // Page budget per file, longer documents are not extracted
+    public ConversionOptions maxPages(int maxPages) {
+        if (maxPages < 1) {
+            throw new IllegalArgumentException("\nMax pages must be at least 1, got: " + maxPages);
+        }
+        this.maxPages = maxPages;
+        return this;
+    }
+
+    // Files over a budget are quarantined
+    public boolean hasBudget() {
+        return fileTimeoutMillis > 0 || maxPages > 0;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    // Encoding of the TXT files (container entries are always UTF-8)
+    public ConversionOptions charset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    public int getGzipLevel() {
+        return gzipLevel;
+    }
+
+    // 1 (fastest) to 9 (smallest), with --gzip
+    public ConversionOptions gzipLevel(int gzipLevel) {
+        if (gzipLevel < 1 || gzipLevel > 9) {
+            throw new IllegalArgumentException("\nGzip level must be between 1 and 9, got: " + gzipLevel);
+        }
+        this.gzipLevel = gzipLevel;
+        return this;
+    }
+
+    public int getOutputBufferSize() {
+        return outputBufferSize;
+    }
+
+    // Bytes buffered per TXT file before each write to disk
+    public ConversionOptions outputBufferSize(long outputBufferSize) {
+        if (outputBufferSize < 1024 || outputBufferSize > 256L * 1024 * 1024) {
+            throw new IllegalArgumentException("\nOutput buffer must be between 1K and 256M, got: " + outputBufferSize + " bytes");
+        }
+        this.outputBufferSize = (int) outputBufferSize;
+        return this;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    // Documents at once adjusted between 1 and max in flight, from throughput and heap pressure
+    public ConversionOptions adaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        return this;
+    }
+
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    // Largest-first keeps a large file found late from stretching the end of a parallel run
+    public ConversionOptions schedule(Schedule schedule) {
+        this.schedule = schedule;
+        return this;
+    }
+
+    public boolean isPageIndex() {
+        return pageIndex;
+    }
+
+    // Byte offset of every page, in NAME.txt.idx next to each TXT file
+    public ConversionOptions pageIndex(boolean pageIndex) {
+        this.pageIndex = pageIndex;
+        return this;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    // Converts only shard index (1..count) of the matching files, or with index 0 every shard not locked by
+    // another node. A shard always keeps a manifest, so a node taking it over skips what was converted
+    public ConversionOptions shard(int index, int count) {
+        if (count < 1 || index < 0 || index > count) {
+            throw new IllegalArgumentException("\nShard must be I/N with 1 <= I <= N (or any/N), got: " + index + "/" + count);
+        }
+        this.shardIndex = index;
+        this.shardCount = count;
+        return this;
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Pipeline mode: a small I/O pool prefetches the PDF bytes, the CPU pool parses and extracts the text,
+ * and a separate writer pool writes it to dest. Each stage has a bounded queue, so a full queue blocks
+ * the stage in front of it (and eventually the scan) instead of piling up documents in memory.
+ *
+ * Unlike the plain pool mode, the extracted text of a document is held in memory between the convert
+ * and write stages, so large documents are better served by the default mode.
+ */
+class ConversionPipeline implements BatchConverter.JobDispatcher {
+    private final BatchConverter converter;
+    private final Stage readStage;
+    private final Stage convertStage;
+    private final Stage writeStage;
+
+    ConversionPipeline(BatchConverter converter, ConversionOptions options) {
+        this.converter = converter;
+        int capacity = options.getQueueCapacity();
+        readStage = new Stage("read", options.getIoThreads(), capacity);
+        convertStage = new Stage("convert", options.getThreads(), capacity);
+        writeStage = new Stage("write", options.getIoThreads(), capacity);
+    }
+
+    @Override
+    public void submit(BatchConverter.Job job) throws InterruptedException {
+        readStage.submit(() -> read(job));
+    }
+
+    @Override
+    public void finish() {
+        // Each stage only feeds the next one, so they can be drained in order
+        readStage.finish();
+        convertStage.finish();
+        writeStage.finish();
+    }
+
+    private void read(BatchConverter.Job job) {
+        if (converter.skipIfNotNeeded(job)) {
+            return;
+        }
+
+        converter.startMetrics(job);
+        long readStart = job.metrics != null ? System.nanoTime() : 0;
+        try {
+            job.pdfBytes = Files.readAllBytes(job.file.toPath());
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            converter.failed(job, "Error reading file: " + job.displayName, e);
+            return;
+        }
+        if (job.metrics != null) {
+            job.metrics.readNanos = System.nanoTime() - readStart;
+        }
+        if (converter.serveFromCache(job)) {
+            return;
+        }
+
+        handOff(convertStage, job, () -> convert(job));
+    }
+
+    private void convert(BatchConverter.Job job) {
+        try (PDDocument document = converter.load(job)) {
+            StringWriter text = new StringWriter();
+            converter.extract(job, document, text);
+            if (!converter.stopWatch(job)) {
+                return; // given up on by the watchdog
+            }
+            job.text = text.toString();
+            job.pdfBytes = null;
+        } catch (IOException | RuntimeException e) {
+            converter.stopWatch(job);
+            converter.failed(job, "Error converting file: " + job.displayName, e);
+            return;
+        }
+
+        handOff(writeStage, job, () -> write(job));
+    }
+
+    private void write(BatchConverter.Job job) {
+        try (Writer writer = converter.openOutput(job)) {
+            writer.write(job.text);
+            converter.commitOutput(job);
+        } catch (IOException | RuntimeException e) {
+            converter.failed(job, "Error writing file: " + job.txtFile.getPath(), e);
+            job.text = null;
+            return;
+        }
+        converter.cacheText(job, job.text);
+        job.text = null;
+        converter.converted(job);
+    }
+
+    private void handOff(Stage next, BatchConverter.Job job, Runnable task) {
+        try {
+            next.submit(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            converter.failed(job, "Conversion interrupted: " + job.displayName, e);
+        }
+    }
+
+    // Queue depths as 'read 3/1.2, convert 8/6.5, write 0/0.1'
+    String describeQueueDepths() {
+        return readStage.describe() + ", " + convertStage.describe() + ", " + writeStage.describe();
+    }
+
+    String queueDepthsJson() {
+        return "{" + readStage.json() + ", " + convertStage.json() + ", " + writeStage.json() + "}";
+    }
+
+    // A fixed pool with a bounded number of waiting tasks, sampling its queue depth on every submit
+    private static class Stage {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final Semaphore slots;
+        private final BudgetWatchdog.Tasks tasks = new BudgetWatchdog.Tasks();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final AtomicLong depthSum = new AtomicLong();
+        private final AtomicLong samples = new AtomicLong();
+
+        Stage(String name, int threads, int capacity) {
+            this.name = name;
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    BatchConverter.workerThreadFactory("pdf2txt-" + name + "-"));
+            // Running tasks plus at most capacity waiting ones
+            this.slots = new Semaphore(threads + capacity);
+        }
+
+        void submit(Runnable task) throws InterruptedException {
+            slots.acquire();
+            int depth = executor.getQueue().size();
+            maxDepth.accumulateAndGet(depth, Math::max);
+            depthSum.addAndGet(depth);
+            samples.incrementAndGet();
+            try {
+                tasks.execute(executor, () -> {
+                    try {
+                        task.run();
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                slots.release();
+                throw e;
+            }
+        }
+
+        void finish() {
+            tasks.await(executor);
+        }
+
+        private double averageDepth() {
+            long n = samples.get();
+            return n == 0 ? 0 : (double) depthSum.get() / n;
+        }
+
+        String describe() {
+            return name + " " + maxDepth.get() + "/" + String.format(Locale.ROOT, "%.1f", averageDepth());
+        }
+
+        String json() {
+            return "\"" + name + "\": {\"maxDepth\": " + maxDepth.get() +
+                    ", \"avgDepth\": " + String.format(Locale.ROOT, "%.2f", averageDepth()) + "}";
+        }
+    }
+}
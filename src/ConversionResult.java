@@ -0,0 +1,85 @@
+import java.io.File;
+
+/**
+ * Outcome of converting one PDF through the library API (see PdfConverter): status, size of the
+ * result, timings of the phases and, for failed files, the cause.
+ */
+public class ConversionResult {
+    public enum Status {
+        CONVERTED,
+        CACHED,   // text copied from the extraction cache, the PDF was not parsed
+        SKIPPED,  // unchanged since the last incremental run
+        FAILED
+    }
+
+    private final File file;
+    private final Status status;
+    private final int pages;
+    private final long outputChars;
+    private final long loadNanos;
+    private final long extractNanos;
+    private final long writeNanos;
+    private final long totalNanos;
+    private final Throwable error;
+
+    ConversionResult(File file, Status status, RunReport.FileMetrics metrics, Throwable error) {
+        this.file = file;
+        this.status = status;
+        this.pages = metrics != null ? metrics.pages : 0;
+        this.outputChars = metrics != null ? metrics.outputChars : 0;
+        this.loadNanos = metrics != null ? metrics.loadNanos : 0;
+        this.extractNanos = metrics != null ? metrics.extractNanos : 0;
+        this.writeNanos = metrics != null ? metrics.writeNanos : 0;
+        this.totalNanos = metrics != null ? metrics.totalNanos : 0;
+        this.error = error;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status != Status.FAILED;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public long getOutputChars() {
+        return outputChars;
+    }
+
+    // Parsing the PDF
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    // Extracting the text, without the time spent in the sink
+    public long getExtractNanos() {
+        return extractNanos;
+    }
+
+    // Time spent writing to the sink
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    // Why the conversion failed, null unless the status is FAILED
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return file + ": " + status + (error != null ? " (" + error + ")" : "");
+    }
+}
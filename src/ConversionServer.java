@@ -0,0 +1,296 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server mode: converts PDFs posted over HTTP on the loopback interface, so other programs can
+ * skip the JVM start and PDFBox warm-up of a CLI call per file.
+ *
+ *   POST /convert  - request body is the PDF, response body is its text (UTF-8, streamed)
+ *   GET  /health   - returns "ok"
+ *
+ * Conversions run on --threads workers, each with its own warmed text stripper. Up to
+ * --queue-size further requests wait for a worker; beyond that the server answers 503.
+ * Bodies over --max-request-size get 413, and --timeout and --max-pages apply to every request.
+ * A request that PDFBox is still busy with after its time budget gets 422 (or has its response cut
+ * short) without waiting for PDFBox, and a worker is added for as long as the stuck one stays busy.
+ *
+ * The JDK server only turns on TCP_NODELAY with -Dsun.net.httpserver.nodelay=true, which the CLI
+ * sets in server mode. Programs embedding the server should set it at startup too, otherwise
+ * short responses wait ~40ms on delayed ACKs.
+ */
+class ConversionServer {
+    private final ConversionOptions options;
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final BudgetWatchdog watchdog; // null unless a time budget is set
+    private int stuckWorkers; // given up on by the watchdog and not returned yet, each replaced by an extra worker
+
+    private final ThreadLocal<BudgetedTextStripper> strippers = ThreadLocal.withInitial(() -> {
+        try {
+            return new BudgetedTextStripper();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    });
+
+    ConversionServer(int port, ConversionOptions options) throws IOException {
+        this.options = options;
+        int threads = options.getThreads();
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(options.getQueueCapacity()), BatchConverter.workerThreadFactory("pdf2txt-server-"));
+        watchdog = options.getFileTimeoutMillis() > 0 ? new BudgetWatchdog() : null;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/convert", this::submit);
+        server.createContext("/health", exchange -> respond(exchange, 200, "ok\n"));
+        // The dispatcher thread only hands requests to the workers, so no executor is needed for it
+        server.setExecutor(null);
+    }
+
+    void start() {
+        warmUp();
+        server.start();
+        System.out.println("Listening on http://" + server.getAddress().getHostString() + ":" + getPort() + "/convert (" +
+                options.getThreads() + " worker(s), up to " + options.getQueueCapacity() + " queued request(s))");
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Lets the running conversions finish, answering requests still in the queue with 503
+    void stop() {
+        List<Runnable> queued = new ArrayList<>();
+        workers.getQueue().drainTo(queued);
+        for (Runnable conversion : queued) {
+            ((Conversion) conversion).reject();
+        }
+        awaitWorkers();
+        server.stop(0);
+        if (watchdog != null) {
+            watchdog.close();
+        }
+    }
+
+    // Like BatchConverter.awaitWorkers, but returns once only workers given up on are left. They are daemons,
+    // so they do not keep the JVM alive either
+    private void awaitWorkers() {
+        workers.shutdown();
+        try {
+            while (!workers.awaitTermination(BudgetWatchdog.AWAIT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                synchronized (this) {
+                    if (stuckWorkers > 0 && workers.getActiveCount() <= stuckWorkers) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Keeps --threads workers free for new requests while one is stuck in PDFBox
+    private synchronized void addWorker() {
+        stuckWorkers++;
+        workers.setMaximumPoolSize(workers.getMaximumPoolSize() + 1);
+        workers.setCorePoolSize(workers.getCorePoolSize() + 1);
+    }
+
+    // The stuck worker returned, the extra one ends once it is idle
+    private synchronized void removeWorker() {
+        stuckWorkers--;
+        workers.setCorePoolSize(workers.getCorePoolSize() - 1);
+        workers.setMaximumPoolSize(workers.getMaximumPoolSize() - 1);
+    }
+
+    // Parses the posted PDF
+    PDDocument load(byte[] pdfBytes) throws IOException {
+        return PDDocument.load(pdfBytes, "", null, null, BatchConverter.memoryUsageSetting(options, pdfBytes.length));
+    }
+
+    // Starts every worker and creates its stripper before the first request arrives
+    private void warmUp() {
+        int threads = options.getThreads();
+        CountDownLatch ready = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                strippers.get();
+                ready.countDown();
+                try {
+                    ready.await(); // hold this worker so that the next task goes to another one
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        try {
+            ready.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "Send the PDF as the body of a POST request\n");
+            return;
+        }
+        Conversion conversion = new Conversion(exchange);
+        try {
+            workers.execute(conversion);
+        } catch (RejectedExecutionException e) {
+            conversion.reject();
+        }
+    }
+
+    // One request, from reading the PDF to the last byte of text
+    private class Conversion implements Runnable {
+        private final HttpExchange exchange;
+        private final AtomicBoolean answered = new AtomicBoolean(); // set by whoever sends the status, worker or watchdog
+
+        Conversion(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public void run() {
+            try {
+                convert();
+            } catch (IOException | RuntimeException e) {
+                // Client went away, or extraction failed after the headers were sent: closing cuts the response short
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void convert() throws IOException {
+            byte[] pdfBytes = readBody();
+            if (pdfBytes == null) {
+                respond(exchange, 413, "PDF larger than " + options.getMaxRequestSize() + " bytes\n");
+                return;
+            }
+
+            // The time budget covers loading and extracting, like a file of a directory conversion
+            long deadline = BudgetedTextStripper.deadline(options.getFileTimeoutMillis());
+            BudgetWatchdog.Watch watch = watchdog == null ? null : watchdog.watch(deadline, this::abandon);
+            try {
+                convert(pdfBytes, deadline, watch);
+            } finally {
+                if (watch != null && watch.end()) {
+                    removeWorker(); // returned after all, the request was answered by abandon
+                }
+            }
+        }
+
+        // Runs on the watchdog thread once PDFBox has ignored the interrupt for the grace period
+        private void abandon() {
+            addWorker();
+            if (answered.compareAndSet(false, true)) {
+                try {
+                    respond(exchange, 422, "Time budget exceeded\n");
+                } catch (IOException e) {
+                    exchange.close(); // client already gone
+                }
+            } else {
+                exchange.close(); // the text has started, cut it short
+            }
+        }
+
+        private void convert(byte[] pdfBytes, long deadline, BudgetWatchdog.Watch watch) throws IOException {
+            // Load before sending the headers, so that a corrupted PDF or one over budget still gets an error status
+            PDDocument document;
+            try {
+                document = load(pdfBytes);
+            } catch (IOException | RuntimeException e) {
+                rejectPdf(watch, "Unable to read PDF: " + e.getMessage());
+                return;
+            }
+
+            try (PDDocument doc = document) {
+                try {
+                    BatchConverter.checkBudget(options, doc, deadline);
+                } catch (IOException e) {
+                    rejectPdf(watch, e.getMessage());
+                    return;
+                }
+                if (!answered.compareAndSet(false, true)) {
+                    return; // given up on by the watchdog
+                }
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+                exchange.sendResponseHeaders(200, 0); // chunked, the text is streamed as it is extracted
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                    BudgetedTextStripper stripper = strippers.get();
+                    stripper.setDeadline(deadline);
+                    BatchConverter.writeText(doc, writer, stripper);
+                }
+            }
+        }
+
+        // Answers 422. The watch ends first, as an interrupt pending from it would close the connection instead
+        private void rejectPdf(BudgetWatchdog.Watch watch, String message) throws IOException {
+            if (watch != null) {
+                watch.end();
+                if (watch.isExpired()) {
+                    message = "Time budget exceeded";
+                }
+            }
+            if (answered.compareAndSet(false, true)) {
+                respond(exchange, 422, message + "\n");
+            }
+        }
+
+        // The request body, or null if it is larger than --max-request-size
+        private byte[] readBody() throws IOException {
+            long maxSize = Math.min(options.getMaxRequestSize(), Integer.MAX_VALUE - 16);
+            String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            try (InputStream in = exchange.getRequestBody()) {
+                if (contentLength != null && Long.parseLong(contentLength.trim()) > maxSize) {
+                    return null; // not read at all, the server drops the connection after the response
+                }
+                byte[] body = in.readNBytes((int) maxSize + 1);
+                return body.length > maxSize ? null : body;
+            }
+        }
+
+        void reject() {
+            try {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "Server busy, try again later\n");
+            } catch (IOException e) {
+                // Client already gone
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+}
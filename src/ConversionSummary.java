@@ -0,0 +1,72 @@
+import java.util.List;
+
+/**
+ * File counts of a directory conversion run through the library API (see PdfConverter.convertDirectory).
+ */
+public class ConversionSummary {
+    private final int scanned;
+    private final int matching;
+    private final int converted;
+    private final int skipped;
+    private final int failed;
+    private final int quarantined;
+
+    ConversionSummary(int scanned, int matching, int converted, int skipped, int failed, int quarantined) {
+        this.scanned = scanned;
+        this.matching = matching;
+        this.converted = converted;
+        this.skipped = skipped;
+        this.failed = failed;
+        this.quarantined = quarantined;
+    }
+
+    // Directory entries looked at
+    public int getScanned() {
+        return scanned;
+    }
+
+    // PDFs that passed the name and date filters
+    public int getMatching() {
+        return matching;
+    }
+
+    // Including the ones served from the extraction cache
+    public int getConverted() {
+        return converted;
+    }
+
+    // Unchanged since the last incremental run
+    public int getSkipped() {
+        return skipped;
+    }
+
+    // Including the files that went over the time or page budget
+    public int getFailed() {
+        return failed;
+    }
+
+    // Skipped because an earlier run found them over budget (see QuarantineList)
+    public int getQuarantined() {
+        return quarantined;
+    }
+
+    // Counts of the shards a node converted (--shard), every shard scans the same entries
+    static ConversionSummary ofShards(List<ConversionSummary> shards) {
+        int scanned = 0, matching = 0, converted = 0, skipped = 0, failed = 0, quarantined = 0;
+        for (ConversionSummary shard : shards) {
+            scanned = Math.max(scanned, shard.scanned);
+            matching += shard.matching;
+            converted += shard.converted;
+            skipped += shard.skipped;
+            failed += shard.failed;
+            quarantined += shard.quarantined;
+        }
+        return new ConversionSummary(scanned, matching, converted, skipped, failed, quarantined);
+    }
+
+    @Override
+    public String toString() {
+        return "scanned " + scanned + ", matching " + matching + ", converted " + converted +
+                ", skipped " + skipped + ", failed " + failed + ", quarantined " + quarantined;
+    }
+}
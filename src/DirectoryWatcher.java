@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch mode: after the first pass over the source directory, keeps the JVM (and the workers' PDF
+ * text strippers) running and converts new or modified PDFs as the file system reports them.
+ * A changed file is only converted once its size and modified date have stayed the same for the
+ * debounce interval, so files that are still being copied are not read half-written. A periodic
+ * full rescan catches changes the notifications missed (e.g. on network shares or after an overflow).
+ * Stops on Ctrl+C, after the running conversions finish and the summary is printed.
+ */
+class DirectoryWatcher {
+    private final BatchConverter converter;
+    private final Path root;
+    private final boolean recursive;
+    private final long debounceNanos;
+    private final long reconcileNanos;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    // Files seen changing, waiting until they are no longer being written
+    private final Map<Path, PendingFile> pending = new HashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean stopping;
+    private volatile boolean rescanRequested; // set on an overflow of the notifications
+
+    private static class PendingFile {
+        long size;
+        long lastModified;
+        long changedNanos;
+    }
+
+    DirectoryWatcher(BatchConverter converter, Path root, ConversionOptions options) throws IOException {
+        this.converter = converter;
+        this.root = root;
+        this.recursive = options.isRecursive();
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(options.getDebounceMillis());
+        this.reconcileNanos = TimeUnit.SECONDS.toNanos(options.getReconcileSeconds());
+        this.watchService = root.getFileSystem().newWatchService();
+    }
+
+    void run() {
+        try {
+            converter.start();
+        } catch (RuntimeException e) {
+            // Nothing to stop yet, but a stop() from elsewhere must not wait for a summary that never comes
+            closeWatchService();
+            stopped.countDown();
+            throw e;
+        }
+        Thread shutdownHook = new Thread(this::stop, "pdf2txt-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try {
+            // Register before the first scan, so files created in between are not missed
+            register(root);
+            converter.scan();
+            System.out.println("Watching " + root.toAbsolutePath() + " for new or modified PDF files. Press Ctrl+C to stop.");
+            watch();
+        } catch (IOException e) {
+            System.err.println("Failed to watch source directory: " + root.toAbsolutePath());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Stopped by the shutdown hook
+        } finally {
+            closeWatchService();
+            converter.stop();
+            converter.printSummary();
+            stopped.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is shutting down, and the hook is what stopped the loop
+            }
+        }
+    }
+
+    private void closeWatchService() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    private void watch() throws IOException, InterruptedException {
+        long pollNanos = Math.max(debounceNanos / 4, TimeUnit.MILLISECONDS.toNanos(10));
+        long nextReconcile = System.nanoTime() + reconcileNanos;
+        while (!stopping) {
+            // Sleep until the next event, or only briefly while files are waiting to settle
+            long timeout = pending.isEmpty() ? TimeUnit.SECONDS.toNanos(1) : Math.min(pollNanos, TimeUnit.SECONDS.toNanos(1));
+            WatchKey key = watchService.poll(timeout, TimeUnit.NANOSECONDS);
+            while (key != null) {
+                if (handleEvents(key)) {
+                    requestRescan();
+                }
+                key = watchService.poll();
+            }
+
+            submitSettledFiles();
+
+            if (rescanRequested || (reconcileNanos > 0 && System.nanoTime() - nextReconcile >= 0)) {
+                rescanRequested = false;
+                converter.scan();
+                nextReconcile = System.nanoTime() + reconcileNanos;
+            }
+        }
+    }
+
+    // Rescans the whole source directory at the next turn of the watch loop, as events were lost
+    void requestRescan() {
+        rescanRequested = true;
+    }
+
+    // Returns true if events were lost and the directory has to be rescanned
+    private boolean handleEvents(WatchKey key) throws IOException {
+        Path dir = watchedDirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                pending.remove(path);
+            } else if (recursive && Files.isDirectory(path)) {
+                // Files may have landed in the new folder before it was registered
+                register(path);
+                markTreeChanged(path);
+            } else {
+                markChanged(path);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirs.remove(key); // directory was deleted
+        }
+        return overflow;
+    }
+
+    private void markChanged(Path path) {
+        if (!path.getFileName().toString().toLowerCase().endsWith(".pdf")) {
+            return;
+        }
+        BasicFileAttributes attr;
+        try {
+            attr = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return; // already gone again
+        }
+        PendingFile file = pending.computeIfAbsent(path, p -> new PendingFile());
+        file.size = attr.size();
+        file.lastModified = attr.lastModifiedTime().toMillis();
+        file.changedNanos = System.nanoTime();
+    }
+
+    private void markTreeChanged(Path dir) throws IOException {
+        Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attr) {
+                markChanged(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Submits the pending files whose size and modified date did not change during the debounce interval
+    private void submitSettledFiles() throws InterruptedException {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, PendingFile>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = it.next();
+            PendingFile file = entry.getValue();
+            if (now - file.changedNanos < debounceNanos) {
+                continue;
+            }
+
+            long attrStart = System.nanoTime();
+            BasicFileAttributes attr;
+            try {
+                attr = Files.readAttributes(entry.getKey(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                it.remove();
+                continue;
+            }
+            long attrNanos = System.nanoTime() - attrStart;
+            if (!attr.isRegularFile()) {
+                it.remove();
+            } else if (attr.size() != file.size || attr.lastModifiedTime().toMillis() != file.lastModified) {
+                // Still being written, wait for another quiet interval
+                file.size = attr.size();
+                file.lastModified = attr.lastModifiedTime().toMillis();
+                file.changedNanos = now;
+            } else if (converter.offer(entry.getKey(), attr, attrNanos)) {
+                it.remove();
+            }
+        }
+    }
+
+    // Registers dir, and in recursive mode all folders below it
+    private void register(Path dir) throws IOException {
+        if (!recursive) {
+            registerOne(dir);
+            return;
+        }
+        Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path subdir, BasicFileAttributes attr) throws IOException {
+                registerOne(subdir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                if (e instanceof FileSystemLoopException) {
+                    System.err.println("Skipping symbolic link loop: " + root.relativize(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void registerOne(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchedDirs.put(key, dir);
+    }
+
+    // Runs on Ctrl+C: stops the watch loop and keeps the JVM alive until the summary is printed
+    void stop() {
+        stopping = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // The loop still sees the stopping flag
+        }
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
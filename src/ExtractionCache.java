@@ -0,0 +1,250 @@
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.util.Version;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of extracted text, keyed by the SHA-256 of the PDF's contents, so that byte-identical
+ * PDFs under different names are parsed only once, across runs as well. Entries are UTF-8 text files
+ * named after their key (in 256 subfolders). The cache is kept below a size limit by evicting the least
+ * recently used entries; the modified date of an entry records its last use, so the order survives restarts.
+ * An entry returned by lookup is pinned until it is released, so that it is not evicted while it is read.
+ */
+class ExtractionCache {
+    private final File dir;
+    private final long maxBytes;
+    private final String settingsKey; // null unless the key includes the PDFBox version and stripper settings
+
+    // Key → entry size, in least to most recently used order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final Map<String, Integer> pins = new HashMap<>(); // key → lookups not released yet
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    ExtractionCache(File dir, long maxBytes, boolean keyOnSettings) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.settingsKey = keyOnSettings ? settingsFingerprint() : null;
+        Files.createDirectories(dir.toPath());
+        load();
+    }
+
+    // Rebuilds the LRU order from the entries' modified dates, dropping temp files left by a crash
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(dir.toPath(), 2)) {
+            paths.filter(Files::isRegularFile).forEach(files::add);
+        }
+        List<Path> cached = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(".txt")) {
+                cached.add(file);
+            } else if (file.getFileName().toString().endsWith(".tmp")) {
+                Files.deleteIfExists(file);
+            }
+        }
+        cached.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+        for (Path file : cached) {
+            String name = file.getFileName().toString();
+            long size = file.toFile().length();
+            entries.put(name.substring(0, name.length() - 4), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    // PDFBox version and the text stripper settings that change the extracted text
+    private static String settingsFingerprint() throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        String settings = "pdfbox=" + Version.getVersion() +
+                ";sortByPosition=" + stripper.getSortByPosition() +
+                ";suppressDuplicateOverlappingText=" + stripper.getSuppressDuplicateOverlappingText() +
+                ";addMoreFormatting=" + stripper.getAddMoreFormatting() +
+                ";separateByBeads=" + stripper.getSeparateByBeads() +
+                ";spacingTolerance=" + stripper.getSpacingTolerance() +
+                ";averageCharTolerance=" + stripper.getAverageCharTolerance() +
+                ";wordSeparator=" + stripper.getWordSeparator() +
+                ";lineSeparator=" + stripper.getLineSeparator() +
+                ";pageStart=" + stripper.getPageStart() +
+                ";pageEnd=" + stripper.getPageEnd();
+        return ConversionManifest.hashBytes(settings.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    String key(String contentHash) {
+        return settingsKey != null ? contentHash + "-" + settingsKey : contentHash;
+    }
+
+    private File entryFile(String key) {
+        return new File(new File(dir, key.substring(0, 2)), key + ".txt");
+    }
+
+    // The cached text for key, or null. Marks the entry as recently used and pins it until release(key)
+    synchronized File lookup(String key) {
+        if (entries.get(key) == null) {
+            return null;
+        }
+        File file = entryFile(key);
+        file.setLastModified(System.currentTimeMillis());
+        pins.merge(key, 1, Integer::sum);
+        return file;
+    }
+
+    // Unpins an entry returned by lookup
+    synchronized void release(String key) {
+        pins.computeIfPresent(key, (pinned, count) -> count > 1 ? count - 1 : null);
+    }
+
+    void recordHit(long pdfBytes) {
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(pdfBytes);
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    // Starts a new entry, written to a temp file until it is committed
+    Entry newEntry(String key) throws IOException {
+        File file = entryFile(key);
+        Files.createDirectories(file.getParentFile().toPath());
+        File tmpFile = File.createTempFile(key, ".tmp", file.getParentFile());
+        return new Entry(key, tmpFile);
+    }
+
+    // Text of one document on its way into the cache
+    class Entry {
+        private final String key;
+        private final File tmpFile;
+        private final Writer out;
+
+        private Entry(String key, File tmpFile) throws IOException {
+            this.key = key;
+            this.tmpFile = tmpFile;
+            this.out = Files.newBufferedWriter(tmpFile.toPath(), StandardCharsets.UTF_8);
+        }
+
+        // Writes everything to both the output and this entry
+        Writer tee(Writer output) {
+            return new Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                    output.write(cbuf, off, len);
+                    out.write(cbuf, off, len);
+                }
+
+                @Override
+                public void write(String str, int off, int len) throws IOException {
+                    output.write(str, off, len);
+                    out.write(str, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    output.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    output.close();
+                }
+            };
+        }
+
+        void write(String text) throws IOException {
+            out.write(text);
+        }
+
+        // Moves the complete text into the cache
+        void commit() throws IOException {
+            out.close();
+            long size = tmpFile.length();
+            if (size > maxBytes) {
+                discard();
+                return;
+            }
+            Files.move(tmpFile.toPath(), entryFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (ExtractionCache.this) {
+                Long previous = entries.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0);
+                evict();
+            }
+        }
+
+        void discard() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Deleted below anyway
+            }
+            tmpFile.delete();
+        }
+    }
+
+    // Deletes least recently used entries until the cache fits its size limit, pinned entries are left for later
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (pins.containsKey(eldest.getKey())) {
+                continue;
+            }
+            if (entryFile(eldest.getKey()).delete() || !entryFile(eldest.getKey()).exists()) {
+                totalBytes -= eldest.getValue();
+                it.remove();
+            }
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    // 'H hit(s), M miss(es), hit rate R%, N MB of PDF parsing saved'
+    String describe() {
+        long lookups = hits.get() + misses.get();
+        double hitRate = lookups > 0 ? 100.0 * hits.get() / lookups : 0;
+        return String.format(Locale.ROOT, "%d hit(s), %d miss(es), hit rate %.1f%%, %.1f MB of PDF parsing saved",
+                hits.get(), misses.get(), hitRate, bytesSaved.get() / (1024.0 * 1024.0));
+    }
+
+    String toJson() {
+        long lookups = hits.get() + misses.get();
+        return String.format(Locale.ROOT, "{\"hits\": %d, \"misses\": %d, \"hitRate\": %.4f, \"bytesSaved\": %d, \"entries\": %d, \"sizeBytes\": %d}",
+                hits.get(), misses.get(), lookups > 0 ? (double) hits.get() / lookups : 0, bytesSaved.get(), entryCount(), size());
+    }
+
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private synchronized long size() {
+        return totalBytes;
+    }
+}
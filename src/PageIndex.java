@@ -0,0 +1,151 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Where every page starts in a TXT file written with --page-index, saved next to it as NAME.txt.idx,
+ * so that a consumer can seek or mmap straight to page N without parsing the PDF again.
+ * Pages without text get a length of 0 at the offset where the next page starts.
+ *
+ * The stripper reports the pages in characters of its output, during the one extraction pass;
+ * TextFileWriter turns them into byte offsets of the encoded file while it writes the text.
+ *
+ * Index line format: page number TAB byte offset TAB byte length
+ */
+public class PageIndex implements BudgetedTextStripper.PageListener {
+    static final String INDEX_SUFFIX = ".idx";
+
+    private final int pageCount;
+    private final long[] byteOffsets;
+    private final long[] byteLengths;
+
+    // While the TXT file is written
+    private final long[] charOffsets;
+    private int recorded = 0;
+    private int resolved = 0;
+
+    // Records the pages of a document while it is extracted
+    PageIndex(int pageCount) {
+        this.pageCount = pageCount;
+        this.charOffsets = new long[pageCount];
+        this.byteOffsets = new long[pageCount];
+        this.byteLengths = new long[pageCount];
+    }
+
+    private PageIndex(long[] byteOffsets, long[] byteLengths) {
+        this.pageCount = byteOffsets.length;
+        this.charOffsets = null;
+        this.byteOffsets = byteOffsets;
+        this.byteLengths = byteLengths;
+    }
+
+    // Reads the index of a TXT file
+    public static PageIndex open(File txtFile) throws IOException {
+        long[] offsets = new long[64];
+        long[] lengths = new long[64];
+        int pages = 0;
+        try (BufferedReader reader = Files.newBufferedReader(indexFile(txtFile).toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length != 3 || Integer.parseInt(fields[0]) != pages + 1) {
+                    throw new IOException("Unexpected line in page index of " + txtFile.getName() + ": " + line);
+                }
+                if (pages == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, pages * 2);
+                    lengths = Arrays.copyOf(lengths, pages * 2);
+                }
+                offsets[pages] = Long.parseLong(fields[1]);
+                lengths[pages] = Long.parseLong(fields[2]);
+                pages++;
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed page index of " + txtFile.getName(), e);
+        }
+        return new PageIndex(Arrays.copyOf(offsets, pages), Arrays.copyOf(lengths, pages));
+    }
+
+    static File indexFile(File txtFile) {
+        return new File(txtFile.getPath() + INDEX_SUFFIX);
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    // Byte offset of page (1-based) in the TXT file
+    public long getOffset(int page) {
+        return byteOffsets[page - 1];
+    }
+
+    public long getLength(int page) {
+        return byteLengths[page - 1];
+    }
+
+    // The text of one page, mapped from the TXT file without reading the pages before it
+    public String readPage(File txtFile, int page, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(txtFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, getOffset(page), getLength(page));
+            return charset.decode(bytes).toString();
+        }
+    }
+
+    // Called by the stripper as page pageNo starts, charOffset chars into the text
+    @Override
+    public void pageStarted(int pageNo, long charOffset) {
+        while (recorded < pageNo && recorded < pageCount) {
+            charOffsets[recorded++] = charOffset;
+        }
+    }
+
+    // Char offset of the next page whose byte offset is not known yet, Long.MAX_VALUE if none
+    long nextCharOffset() {
+        return resolved < recorded ? charOffsets[resolved] : Long.MAX_VALUE;
+    }
+
+    // The writer has encoded the text up to nextCharOffset(), into byteOffset bytes
+    void resolveNext(long byteOffset) {
+        byteOffsets[resolved++] = byteOffset;
+    }
+
+    // The file is complete, pages not resolved yet (no text after them) start at its end
+    void finish(long totalBytes) {
+        while (resolved < pageCount) {
+            byteOffsets[resolved++] = totalBytes;
+        }
+        for (int i = 0; i < pageCount; i++) {
+            byteLengths[i] = (i + 1 < pageCount ? byteOffsets[i + 1] : totalBytes) - byteOffsets[i];
+        }
+    }
+
+    // Written next to the temp file and renamed, like the TXT file itself
+    void write(File indexFile) throws IOException {
+        Path target = indexFile.toPath();
+        Path tempFile = target.resolveSibling("." + indexFile.getName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < pageCount; i++) {
+                    writer.write((i + 1) + "\t" + byteOffsets[i] + "\t" + byteLengths[i] + "\n");
+                }
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Extracts one large document on several threads: the pages are split into ranges, every range is
+ * extracted from its own document handle with its own stripper, and the results are written back
+ * in page order, so the output is the same as a sequential extraction.
+ */
+class PageRangeExtractor implements AutoCloseable {
+    private final ExecutorService pool;
+    private final int threads;
+
+    private final ThreadLocal<BudgetedTextStripper> strippers = ThreadLocal.withInitial(() -> {
+        try {
+            return new BudgetedTextStripper();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    });
+
+    // Opens a new handle on the document, since a PDDocument must not be shared between threads
+    interface DocumentLoader {
+        PDDocument load() throws IOException;
+    }
+
+    PageRangeExtractor(int threads) {
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, BatchConverter.workerThreadFactory("pdf2txt-pages-"));
+    }
+
+    // Writes the text of pages 1..pageCount to writer, extracting pagesPerRange pages per task
+    void extract(DocumentLoader loader, int pageCount, int pagesPerRange, Writer writer) throws IOException {
+        extract(loader, pageCount, pagesPerRange, writer, 0);
+    }
+
+    // Same, every range gives up at its next page once deadlineNanos (System.nanoTime() terms, 0 for none) has passed
+    void extract(DocumentLoader loader, int pageCount, int pagesPerRange, Writer writer, long deadlineNanos) throws IOException {
+        extract(loader, pageCount, pagesPerRange, writer, deadlineNanos, null);
+    }
+
+    // Same, telling pages (if not null) where each page starts in the text written to writer
+    void extract(DocumentLoader loader, int pageCount, int pagesPerRange, Writer writer, long deadlineNanos,
+                 BudgetedTextStripper.PageListener pages) throws IOException {
+        // Only a few ranges run ahead of the writer, so that finished text does not pile up in memory
+        Deque<Future<RangeText>> window = new ArrayDeque<>();
+        long written = 0;
+        int nextPage = 1;
+        try {
+            while (nextPage <= pageCount || !window.isEmpty()) {
+                while (nextPage <= pageCount && window.size() < threads * 2) {
+                    int startPage = nextPage;
+                    int endPage = Math.min(pageCount, startPage + pagesPerRange - 1);
+                    window.add(pool.submit(extractRange(loader, startPage, endPage, deadlineNanos, pages != null)));
+                    nextPage = endPage + 1;
+                }
+                RangeText range = window.poll().get();
+                if (pages != null) {
+                    // Offsets within the range, moved behind the text of the ranges before it
+                    for (int i = 0; i < range.pageNumbers.size(); i++) {
+                        pages.pageStarted(range.pageNumbers.get(i), written + range.charOffsets.get(i));
+                    }
+                }
+                writer.write(range.text);
+                written += range.text.length();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting page ranges", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            for (Future<RangeText> pending : window) {
+                pending.cancel(true);
+            }
+        }
+    }
+
+    private Callable<RangeText> extractRange(DocumentLoader loader, int startPage, int endPage, long deadlineNanos, boolean recordPages) {
+        return () -> {
+            try (PDDocument document = loader.load()) {
+                BudgetedTextStripper stripper = strippers.get();
+                stripper.setStartPage(startPage);
+                stripper.setEndPage(endPage);
+                stripper.setDeadline(deadlineNanos);
+                RangeText range = new RangeText();
+                stripper.setPageListener(recordPages ? range : null);
+                StringWriter text = new StringWriter();
+                stripper.writeText(document, text);
+                range.text = text.toString();
+                return range;
+            }
+        };
+    }
+
+    // The text of one range, and where its pages start in it
+    private static class RangeText implements BudgetedTextStripper.PageListener {
+        String text;
+        final List<Integer> pageNumbers = new ArrayList<>();
+        final List<Long> charOffsets = new ArrayList<>();
+
+        @Override
+        public void pageStarted(int pageNo, long charOffset) {
+            pageNumbers.add(pageNo);
+            charOffsets.add(charOffset);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
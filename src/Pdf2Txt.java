@@ -1,17 +1,14 @@
 import java.io.File;
-import java.io.FileWriter;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.attribute.BasicFileAttributes;
-
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import java.nio.charset.Charset;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -34,15 +31,58 @@ public class Pdf2Txt {
         dateFormat.setLenient(false); // only accepts dd-MM-yyyy format
         Date minDate = new Date(0);  // 01-01-1970
         Date maxDate = new Date();   // current date
+        ConversionOptions options = new ConversionOptions();
 
-        // If args[0] is provided, separate wildcard from source path
+        // First, check if user has called for help
         if (args.length >= 1) {
-            // First, check if user has called for help
             switch (args[0]) {
                 case "--help": callHelp("--help"); System.exit(0); break;
                 case "--about": callHelp("--about"); System.exit(0); break;
             }
+        }
+
+        // Separate --option flags from the positional arguments
+        args = parseOptions(args, options);
+
+        // The adaptive limit replaces the in-flight bound of the thread pool, the other modes have their own
+        if (options.isAdaptive() && (options.isPipeline() || options.isVirtualThreads())) {
+            throw new IllegalArgumentException("\n--adaptive cannot be combined with --pipeline or --virtual-threads.");
+        }
+
+        // Nodes only coordinate through the shard locks of one directory conversion
+        if (options.getShardCount() > 0 && (options.isWatch() || options.getServePort() >= 0 || options.getContainerFile() != null)) {
+            throw new IllegalArgumentException("\n--shard cannot be combined with --watch, --serve or --container.");
+        }
+
+        // Virtual threads need Java 21, older JVMs keep the platform thread pool
+        if (options.isVirtualThreads()) {
+            if (options.isPipeline()) {
+                throw new IllegalArgumentException("\n--virtual-threads cannot be combined with --pipeline.");
+            }
+            if (Runtime.version().feature() < 21) {
+                System.err.println("Warning: --virtual-threads requires Java 21 or later, found " + version + ". Using platform threads.");
+                options.virtualThreads(false);
+            }
+        }
+
+        // Server mode converts posted PDFs and ignores the directory arguments
+        if (options.getServePort() >= 0) {
+            // Without TCP_NODELAY, the small chunks of short responses wait ~40ms on delayed ACKs (read once by the JDK server)
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            }
+            try {
+                ConversionServer server = new ConversionServer(options.getServePort(), options);
+                server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "pdf2txt-shutdown"));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("\nUnable to start server on port " + options.getServePort() + ": " + e.getMessage());
+            }
+            return;
+        }
 
+        // If args[0] is provided, separate wildcard from source path
+        if (args.length >= 1) {
             File inputPath = new File(args[0]);
 
             // Check if user provided an existing directory without wildcard
@@ -122,8 +162,12 @@ public class Pdf2Txt {
                 throw new IllegalArgumentException("\nMax modified date cannot be earlier than min modified date.");
             }
         }
+        // In watch mode files modified after startup must still match, unless a max date was given
+        if (options.isWatch() && args.length < 4) {
+            maxDate = new Date(Long.MAX_VALUE);
+        }
         // Run the conversion. If no args are provided, use defaults (current directory, all PDFs, full date range)
-        convertPdfs(source, dest, pattern, minDate, maxDate);
+        convertPdfs(source, dest, pattern, minDate, maxDate, options);
     }
 
     public static String convertWildcardToRegex(String wildcard) {
@@ -161,70 +205,245 @@ public class Pdf2Txt {
     }
 
     public static void convertPdfs(File source, File dest, Pattern pattern, Date minDate, Date maxDate) {
-        // Count number of PDF files converted to TXT
-        int countMatching = 0;
-        int countConverted = 0;
-
-        File[] listOfFiles = source.listFiles();
-
-        // Check if source directory is not empty
-        if (listOfFiles != null) {
-            // Count total number of files in source directory
-            int numFiles = 0;
-            for (File entry : listOfFiles) { if (entry.isFile()) { numFiles++; }}
-
-            System.out.println("Found a total of " + numFiles + " file(s) in: " + source.getAbsolutePath() + "\n");
-            System.out.println("Entering conversion phase");
-            System.out.println("===========================================");
-
-            for (File file : listOfFiles) {
-                String fileName = file.getName().trim();
-
-                // Check if it's a PDF file that matches the wildcard
-                if (file.isFile() && fileName.toLowerCase().endsWith(".pdf") && pattern.matcher(fileName).matches()) {
-                    try {
-                        // Check if file's modified date is within min and max modified date
-                        BasicFileAttributes attr = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
-                        Date fileDate = new Date(attr.lastModifiedTime().toMillis());
-
-                        if (!fileDate.before(minDate) && !fileDate.after(maxDate)) {
-                            countMatching++;
-                            // Create the new TXT file, same name as original PDF file
-                            File txtFile = new File(dest, file.getName().substring(0, file.getName().length() - 4) + ".txt");
-
-                            // Begin conversion here
-                            try (
-                                    PDDocument document = PDDocument.load(file);
-                                    BufferedWriter bw = new BufferedWriter(new FileWriter(txtFile))
-                            ) {
-                                PDFTextStripper stripper = new PDFTextStripper();
-                                String text = stripper.getText(document);
-                                bw.write(text);
-
-                                System.out.println("Converted file: " + file.getName());
-                                countConverted++;
-                            } catch (IOException e) {
-                                System.err.println("Error converting file: " + file.getName());
-                            }
-                        }
-                    } catch (IOException | UnsupportedOperationException | SecurityException e) {
-                        System.err.println("Failed to read file attributes: " + file.getName());
-                    }
+        convertPdfs(source, dest, pattern, minDate, maxDate, new ConversionOptions());
+    }
+
+    public static void convertPdfs(File source, File dest, Pattern pattern, Date minDate, Date maxDate, ConversionOptions options) {
+        if (!options.isWatch()) {
+            try (PdfConverter converter = new PdfConverter(options)) {
+                converter.convertDirectory(source, dest, pattern, minDate, maxDate, null).join();
+            } catch (CompletionException e) {
+                // Rethrow the IllegalArgumentException for a bad source or dest as it is
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
                 }
+                throw e;
             }
-            // Print number of files converted
-            if (countConverted == 0) {
-                System.out.println("===========================================\n");
-                System.out.println("No PDF files were converted.\n" +
-                        "Possible reasons: no matching files, date filters excluded all, or conversion failed.");
+            return;
+        }
+        BatchConverter converter = new BatchConverter(source, dest, pattern, minDate, maxDate, options);
+        try {
+            new DirectoryWatcher(converter, source.toPath(), options).run();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("\nUnable to watch source directory for changes: " + source.getAbsolutePath());
+        }
+    }
 
-            } else {
-                System.out.println("===========================================\n");
-                System.out.println("Successfully converted " + countConverted + "/" + countMatching + " matching PDF file(s)");
-                System.out.println("TXT file(s) saved to: " + dest.getAbsolutePath());
+    // Removes the --option flags from args, applies them to options and returns the remaining positional args
+    public static String[] parseOptions(String[] args, ConversionOptions options) {
+        List<String> positional = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                positional.add(arg);
+                continue;
             }
-        } else {
-            throw new IllegalArgumentException("\nUnable to read contents of source directory: " + source + "\nExiting program.");
+
+            switch (arg) {
+                case "--threads":
+                    options.threads(parseIntOption(arg, args, ++i));
+                    break;
+                case "--max-in-flight":
+                    options.maxInFlight(parseIntOption(arg, args, ++i));
+                    break;
+                case "--container":
+                    options.containerFile(new File(optionValue(arg, args, ++i)));
+                    break;
+                case "--gzip":
+                    options.gzip(true);
+                    break;
+                case "--roll-size":
+                    options.rollSize(parseSizeOption(arg, args, ++i));
+                    break;
+                case "--split-pages":
+                    options.pageSplitThreshold(parseIntOption(arg, args, ++i));
+                    break;
+                case "--pages-per-task":
+                    options.pagesPerRange(parseIntOption(arg, args, ++i));
+                    break;
+                case "--pipeline":
+                    options.pipeline(true);
+                    break;
+                case "--virtual-threads":
+                    options.virtualThreads(true);
+                    break;
+                case "--adaptive":
+                    options.adaptive(true);
+                    break;
+                case "--page-index":
+                    options.pageIndex(true);
+                    break;
+                case "--shard":
+                    parseShard(optionValue(arg, args, ++i), options);
+                    break;
+                case "--schedule":
+                    options.schedule(parseSchedule(optionValue(arg, args, ++i)));
+                    break;
+                case "--charset":
+                    options.charset(parseCharset(optionValue(arg, args, ++i)));
+                    break;
+                case "--gzip-level":
+                    options.gzipLevel(parseIntOption(arg, args, ++i));
+                    break;
+                case "--output-buffer":
+                    options.outputBufferSize(parseSizeOption(arg, args, ++i));
+                    break;
+                case "--timeout":
+                    options.fileTimeoutMillis(parseIntOption(arg, args, ++i) * 1000L);
+                    break;
+                case "--max-pages":
+                    options.maxPages(parseIntOption(arg, args, ++i));
+                    break;
+                case "--io-threads":
+                    options.ioThreads(parseIntOption(arg, args, ++i));
+                    break;
+                case "--queue-size":
+                    options.queueCapacity(parseIntOption(arg, args, ++i));
+                    break;
+                case "--recursive":
+                    options.recursive(true);
+                    break;
+                case "--report":
+                    options.reportFile(new File(optionValue(arg, args, ++i)));
+                    break;
+                case "--memory":
+                    options.memoryMode(parseMemoryMode(optionValue(arg, args, ++i)));
+                    break;
+                case "--heap-cap":
+                    options.heapCap(parseSizeOption(arg, args, ++i));
+                    break;
+                case "--scratch-dir":
+                    options.scratchDir(new File(optionValue(arg, args, ++i)));
+                    break;
+                case "--incremental":
+                    options.incremental(true);
+                    break;
+                case "--hash":
+                    options.incremental(true).hashContents(true);
+                    break;
+                case "--watch":
+                    // Rescans must not convert everything again
+                    options.watch(true).incremental(true);
+                    break;
+                case "--debounce":
+                    options.debounceMillis(parseIntOption(arg, args, ++i));
+                    break;
+                case "--reconcile":
+                    options.reconcileSeconds(parseIntOption(arg, args, ++i));
+                    break;
+                case "--cache":
+                    options.cacheDir(new File(optionValue(arg, args, ++i)));
+                    break;
+                case "--cache-size":
+                    options.cacheSize(parseSizeOption(arg, args, ++i));
+                    break;
+                case "--cache-key-settings":
+                    options.cacheKeyOnSettings(true);
+                    break;
+                case "--cache-link":
+                    options.cacheHardLink(true);
+                    break;
+                case "--serve":
+                    options.servePort(parseIntOption(arg, args, ++i));
+                    break;
+                case "--max-request-size":
+                    options.maxRequestSize(parseSizeOption(arg, args, ++i));
+                    break;
+                default:
+                    throw new IllegalArgumentException("\nUnknown option: " + arg + "\n" +
+                            "Run with '--help' for the list of supported options.");
+            }
+        }
+
+        return positional.toArray(new String[0]);
+    }
+
+    private static String optionValue(String option, String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("\nMissing value for option: " + option);
+        }
+        return args[index];
+    }
+
+    private static int parseIntOption(String option, String[] args, int index) {
+        String value = optionValue(option, args, index);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\nInvalid number for option " + option + ": " + value);
+        }
+    }
+
+    private static ConversionOptions.MemoryMode parseMemoryMode(String value) {
+        try {
+            return ConversionOptions.MemoryMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("\nInvalid memory mode: " + value + "\n" +
+                    "Expected one of: auto, heap, mixed, temp");
+        }
+    }
+
+    // I/N or any/N
+    private static void parseShard(String value, ConversionOptions options) {
+        int slash = value.indexOf('/');
+        try {
+            if (slash < 0) {
+                throw new NumberFormatException();
+            }
+            String index = value.substring(0, slash);
+            int count = Integer.parseInt(value.substring(slash + 1));
+            if (index.equalsIgnoreCase("any")) {
+                options.shard(0, count);
+                return;
+            }
+            // 0 stands for any in ConversionOptions, but only the word selects it here
+            int shard = Integer.parseInt(index);
+            if (shard < 1) {
+                throw new IllegalArgumentException("\nShard must be I/N with 1 <= I <= N (or any/N), got: " + value);
+            }
+            options.shard(shard, count);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\nInvalid shard: " + value + "\n" +
+                    "Expected I/N (e.g., 2/4) or any/N");
+        }
+    }
+
+    private static ConversionOptions.Schedule parseSchedule(String value) {
+        try {
+            return ConversionOptions.Schedule.valueOf(value.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("\nInvalid schedule: " + value + "\n" +
+                    "Expected one of: fifo, largest-first, smallest-first");
+        }
+    }
+
+    private static Charset parseCharset(String value) {
+        try {
+            return Charset.forName(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("\nUnknown or unsupported charset: " + value + "\n" +
+                    "Expected a name like UTF-8, UTF-16 or ISO-8859-1");
+        }
+    }
+
+    // Parses sizes like 512K, 64M or 2G (plain numbers are bytes)
+    private static long parseSizeOption(String option, String[] args, int index) {
+        String value = optionValue(option, args, index).trim().toUpperCase();
+        long multiplier = 1;
+        if (value.endsWith("K")) {
+            multiplier = 1024L;
+        } else if (value.endsWith("M")) {
+            multiplier = 1024L * 1024;
+        } else if (value.endsWith("G")) {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        String digits = multiplier == 1 ? value : value.substring(0, value.length() - 1);
+        try {
+            return Long.parseLong(digits) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\nInvalid size for option " + option + ": " + value + "\n" +
+                    "Expected a number of bytes, optionally followed by K, M or G (e.g., 64M)");
         }
     }
 
@@ -233,7 +452,7 @@ public class Pdf2Txt {
             System.out.println(
                     "PDF to TXT Converter - Help\n" +
                             "------------------------------------------------------------\n" +
-                            "Usage: java -jar pdf2txt.jar [source] [dest] [minDate] [maxDate]\n" +
+                            "Usage: java -jar pdf2txt.jar [source] [dest] [minDate] [maxDate] [options]\n" +
                             "\n" +
                             "Arguments:\n" +
                             "  source       - Path to the PDF files.\n" +
@@ -257,6 +476,72 @@ public class Pdf2Txt {
                             "  maxDate      - Max modified date for PDFs (format: dd-MM-yyyy, e.g., 01-01-2023).\n" +
                             "                 Defaults to the current date.\n" +
                             "\n" +
+                            "Options:\n" +
+                            "  --threads N        - Number of files converted in parallel. Defaults to the number of CPU cores.\n" +
+                            "  --max-in-flight N  - Max number of documents queued or converting at once. Defaults to --threads.\n" +
+                            "                       Lower it to keep memory usage down when converting very large PDFs.\n" +
+                            "  --container FILE   - Append the text of all PDFs to FILE instead of one TXT file per PDF.\n" +
+                            "                       FILE.idx maps each PDF (path relative to source) to its byte range.\n" +
+                            "  --gzip             - Compress the output with gzip: TXT files become .txt.gz, or each document's\n" +
+                            "                       text in the container is compressed.\n" +
+                            "  --gzip-level N     - 1 (fastest) to 9 (smallest). Defaults to 6.\n" +
+                            "  --charset NAME     - Encoding of the TXT files (e.g., UTF-16, ISO-8859-1). Defaults to UTF-8.\n" +
+                            "  --output-buffer SIZE - Bytes buffered per TXT file between writes to disk (e.g., 1M). Defaults to 64K.\n" +
+                            "  --page-index       - Also write NAME.txt.idx with the byte offset and length of every page in\n" +
+                            "                       NAME.txt, to jump to a page without parsing the PDF again.\n" +
+                            "  --roll-size SIZE   - Continue in FILE.1, FILE.2, ... once a container part reaches SIZE (e.g., 1G).\n" +
+                            "  --split-pages N    - Extract PDFs with N or more pages on several threads, in page ranges.\n" +
+                            "                       The output is the same as a normal extraction.\n" +
+                            "  --pages-per-task N - Pages per range when a PDF is split. Defaults to 50.\n" +
+                            "  --pipeline         - Read, convert and write on separate thread pools connected by bounded queues.\n" +
+                            "                       Keeps the CPU busy while waiting on slow (e.g., network) storage.\n" +
+                            "  --timeout SECONDS  - Time budget per file for loading and extracting. Past it the worker is\n" +
+                            "                       interrupted, and given up on if it is still busy 2 seconds later.\n" +
+                            "  --max-pages N      - Page budget per file, longer PDFs are not extracted.\n" +
+                            "                       Files over a budget are listed in dest/.pdf2txt-quarantine and skipped by\n" +
+                            "                       later runs until they change. Delete the list to retry them all.\n" +
+                            "  --virtual-threads  - Java 21+: load each file on its own virtual thread, with at most --threads\n" +
+                            "                       text extractions at once. For slow (e.g., network) storage. --max-in-flight\n" +
+                            "                       defaults to 4x --threads. Falls back to normal threads on older Java.\n" +
+                            "  --adaptive         - Start with one file at once and adjust up to --max-in-flight while\n" +
+                            "                       throughput improves, backing off when the heap fills up or GC time rises.\n" +
+                            "  --schedule ORDER   - Order of conversion: fifo (as listed, default), largest-first or\n" +
+                            "                       smallest-first. Largest-first keeps a large file found late from\n" +
+                            "                       stretching the end of the run. Sorting waits for the scan to finish.\n" +
+                            "  --shard I/N        - Convert only shard I of N of the matching files, split by a hash of their\n" +
+                            "                       path, for nodes sharing dest. A shard is locked in dest while converted and\n" +
+                            "                       keeps its own manifest; a restarted node resumes it. any/N converts every\n" +
+                            "                       shard not locked by another node, waiting for the locked ones.\n" +
+                            "  --io-threads N     - Number of reader and of writer threads in pipeline mode. Defaults to 2.\n" +
+                            "  --queue-size N     - Max documents waiting in front of each pipeline stage, or max requests\n" +
+                            "                       waiting for a worker in server mode. Defaults to --threads.\n" +
+                            "  --recursive        - Also convert PDFs in subfolders, mirroring the folder structure under dest.\n" +
+                            "  --report FILE      - Write per-file timings (attributes, load, extract, write), throughput and\n" +
+                            "                       latency percentiles of the run as JSON to FILE.\n" +
+                            "  --memory MODE      - Where PDFBox buffers parsed documents: heap, mixed (heap up to --heap-cap,\n" +
+                            "                       then a scratch file), temp (scratch file only) or auto (default, picks one\n" +
+                            "                       per file from its size relative to the max heap).\n" +
+                            "  --heap-cap SIZE    - Heap limit per document in mixed mode (e.g., 64M).\n" +
+                            "  --scratch-dir DIR  - Directory for scratch files. Defaults to the system temp directory.\n" +
+                            "  --incremental      - Skip PDFs that are unchanged since they were last converted into dest.\n" +
+                            "                       Uses a manifest file (" + ConversionManifest.FILE_NAME + ") kept in dest.\n" +
+                            "  --hash             - Like --incremental, but also compares a SHA-256 hash of each PDF.\n" +
+                            "  --watch            - Keep running and convert new or modified PDFs as they appear (implies\n" +
+                            "                       --incremental). Press Ctrl+C to stop.\n" +
+                            "  --debounce MS      - In watch mode, wait until a file has not changed for MS milliseconds\n" +
+                            "                       before converting it. Defaults to 500.\n" +
+                            "  --reconcile SEC    - In watch mode, rescan the whole source directory every SEC seconds to catch\n" +
+                            "                       missed changes (0 turns it off). Defaults to 300.\n" +
+                            "  --cache DIR        - Keep extracted text in DIR, keyed by a SHA-256 hash of each PDF, and copy it\n" +
+                            "                       for byte-identical PDFs instead of parsing them again.\n" +
+                            "  --cache-size SIZE  - Max size of the cache (e.g., 500M). Least recently used text is evicted\n" +
+                            "                       beyond it. Defaults to 1G.\n" +
+                            "  --cache-key-settings - Also key the cache on the PDFBox version and text extraction settings.\n" +
+                            "  --cache-link       - Hard-link cached text into dest instead of copying it.\n" +
+                            "  --serve PORT       - Run as a local HTTP service instead: POST a PDF to http://127.0.0.1:PORT/convert\n" +
+                            "                       and receive its text. Uses --threads workers and --queue-size waiting requests.\n" +
+                            "  --max-request-size SIZE - Max size of a PDF posted in server mode (e.g., 64M). Defaults to 256M.\n" +
+                            "\n" +
                             "Example:\n" +
                             "From .jar file:   java -jar pdf2txt.jar ./input/report_?.pdf ./output 01-01-2022 01-01-2023\n" +
                             "From .bat file:   Windows users can run the .jar by double-clicking the .bat file.\n" +
@@ -273,6 +558,11 @@ public class Pdf2Txt {
                             "  - Batch conversion of multiple PDF files.\n" +
                             "  - Wildcard-based filtering for filenames (using * and ?).\n" +
                             "  - Last modified date filtering (min and max).\n" +
+                            "  - Parallel conversion on multiple threads.\n" +
+                            "  - Recursive conversion of subfolders.\n" +
+                            "  - Watching a folder and converting new PDFs as they appear.\n" +
+                            "  - Local HTTP conversion service (--serve).\n" +
+                            "  - Embedding in Java programs (PdfConverter).\n" +
                             "\n" +
                             "Limitations:\n" +
                             "  - Arguments must be provided in order: [source], [dest], [minDate], [maxDate].\n" +
@@ -280,7 +570,7 @@ public class Pdf2Txt {
                             "  - Wildcards apply to filenames only, not directory names.\n" +
                             "  - The * wildcard is greedy (matches as many characters as possible).\n" +
                             "  - Date filtering is based on the file's last modified timestamp.\n" +
-                            "  - Recursive folder traversal is not supported.\n" +
+                            "  - Recursive folder traversal must be enabled with --recursive.\n" +
                             "\n" +
                             "Version: 1.0.0 (Stable)\n" +
                             "License: MIT (Open source). See the LICENCE file for details.\n" +
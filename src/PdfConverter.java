@@ -0,0 +1,182 @@
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Library entry point: converts PDFs on a pool of worker threads that lives as long as the converter,
+ * so a program embedding the converter pays the PDFBox warm-up once. Configured with the same
+ * ConversionOptions as the CLI, which is itself a thin wrapper around convertDirectory.
+ *
+ *   try (PdfConverter converter = new PdfConverter(new ConversionOptions().threads(4))) {
+ *       TextSink.InMemory text = TextSink.inMemory();
+ *       ConversionResult result = converter.submit(new File("a.pdf"), text).join();
+ *   }
+ *
+ * The futures of submit and submitAll complete with a FAILED result rather than exceptionally when a
+ * PDF cannot be converted, so one bad file does not fail a whole batch.
+ */
+public class PdfConverter implements AutoCloseable {
+    private final ConversionOptions options;
+    private final ExecutorService batches; // runs directory conversions, which bring their own workers
+    // Created by the first submit, so that directory conversions (the CLI) do not start them for nothing
+    private ExecutorService workers;
+    private PageRangeExtractor pageRangeExtractor; // null unless large documents are split into page ranges
+    private BudgetWatchdog watchdog; // null unless a time budget is set
+    private final BudgetWatchdog.Tasks tasks = new BudgetWatchdog.Tasks();
+
+    private final ThreadLocal<BudgetedTextStripper> strippers = ThreadLocal.withInitial(() -> {
+        try {
+            return new BudgetedTextStripper();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    });
+
+    public PdfConverter(ConversionOptions options) {
+        this.options = options;
+        this.batches = Executors.newSingleThreadExecutor(BatchConverter.workerThreadFactory("pdf2txt-batch-"));
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(options.getThreads(), BatchConverter.workerThreadFactory("pdf2txt-library-"));
+            pageRangeExtractor = options.getPageSplitThreshold() > 0 ? new PageRangeExtractor(options.getThreads()) : null;
+            watchdog = options.getFileTimeoutMillis() > 0 ? new BudgetWatchdog() : null;
+        }
+        return workers;
+    }
+
+    // Converts one PDF into sink. Submissions beyond the number of threads wait for a free worker.
+    // A PDF that PDFBox is still busy with after its time budget completes as FAILED without waiting for it
+    public CompletableFuture<ConversionResult> submit(File pdf, TextSink sink) {
+        CompletableFuture<ConversionResult> result = new CompletableFuture<>();
+        tasks.execute(workers(), () -> {
+            try {
+                result.complete(convert(pdf, sink, result));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        });
+        return result;
+    }
+
+    // Converts every PDF into the sink given for it, the results are in the order of pdfs
+    public CompletableFuture<List<ConversionResult>> submitAll(List<File> pdfs, Function<File, TextSink> sinks) {
+        List<CompletableFuture<ConversionResult>> futures = new ArrayList<>();
+        for (File pdf : pdfs) {
+            futures.add(submit(pdf, sinks.apply(pdf)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<ConversionResult> results = new ArrayList<>();
+            for (CompletableFuture<ConversionResult> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+
+    // Same as the CLI: converts the matching PDFs of source into TXT files under dest (or the container file).
+    // onResult, if not null, is called on the worker threads for every matching file.
+    // Completes exceptionally with an IllegalArgumentException if source, dest or the outputs cannot be used.
+    // With a shard in the options, waits for the shard lock(s) in dest and converts only the files of those shards.
+    public CompletableFuture<ConversionSummary> convertDirectory(File source, File dest, Pattern pattern, Date minDate, Date maxDate,
+                                                                 Consumer<ConversionResult> onResult) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (options.getShardCount() > 0) {
+                PrintStream out = options.isQuiet() ? new PrintStream(OutputStream.nullOutputStream()) : System.out;
+                // Source is walked once, when the first shard is locked, and every shard converted here takes its files from that
+                BatchConverter.Listing[] listing = new BatchConverter.Listing[1];
+                return ConversionSummary.ofShards(ShardLock.runShards(dest, options, out, shard -> {
+                    if (listing[0] == null) {
+                        listing[0] = new BatchConverter(source, dest, pattern, minDate, maxDate, options).list();
+                    }
+                    return convertBatch(source, dest, pattern, minDate, maxDate, onResult, shard, listing[0]);
+                }));
+            }
+            return convertBatch(source, dest, pattern, minDate, maxDate, onResult, 0, null);
+        }, batches);
+    }
+
+    private ConversionSummary convertBatch(File source, File dest, Pattern pattern, Date minDate, Date maxDate,
+                                           Consumer<ConversionResult> onResult, int shard, BatchConverter.Listing listing) {
+        BatchConverter converter = new BatchConverter(source, dest, pattern, minDate, maxDate, options);
+        converter.setResultListener(onResult);
+        converter.setShard(shard);
+        converter.setListing(listing);
+        converter.run();
+        return converter.getSummary();
+    }
+
+    // The watchdog completes result early if it gives up on the PDF
+    private ConversionResult convert(File pdf, TextSink sink, CompletableFuture<ConversionResult> result) {
+        RunReport.FileMetrics metrics = new RunReport.FileMetrics(pdf.getPath(), pdf.length());
+        long start = System.nanoTime();
+        ConversionResult.Status status = ConversionResult.Status.CONVERTED;
+        Throwable error = null;
+
+        MemoryUsageSetting memoryUsage = BatchConverter.memoryUsageSetting(options, metrics.inputBytes);
+        long deadline = BudgetedTextStripper.deadline(options.getFileTimeoutMillis());
+        BudgetWatchdog.Watch watch = watchdog == null ? null : watchdog.watch(deadline, () -> result.complete(new ConversionResult(pdf,
+                ConversionResult.Status.FAILED, metrics, new BudgetedTextStripper.BudgetExceededException("Time budget exceeded, gave up waiting for PDFBox"))));
+        try (PDDocument document = PDDocument.load(pdf, memoryUsage)) {
+            metrics.loadNanos = System.nanoTime() - start;
+            metrics.pages = document.getNumberOfPages();
+            BatchConverter.checkBudget(options, document, deadline);
+            // The sink is opened once the document is loaded, so a corrupted PDF leaves no empty output behind
+            long extractStart = System.nanoTime();
+            try (Writer writer = new RunReport.TimingWriter(sink.open(), metrics)) {
+                if (pageRangeExtractor != null && metrics.pages >= options.getPageSplitThreshold()) {
+                    pageRangeExtractor.extract(() -> PDDocument.load(pdf, memoryUsage), metrics.pages, options.getPagesPerRange(), writer, deadline);
+                } else {
+                    BudgetedTextStripper stripper = strippers.get();
+                    stripper.setDeadline(deadline);
+                    BatchConverter.writeText(document, writer, stripper);
+                }
+                writer.flush();
+                metrics.extractNanos = System.nanoTime() - extractStart - metrics.writeNanos;
+            }
+        } catch (IOException | RuntimeException e) {
+            status = ConversionResult.Status.FAILED;
+            error = e;
+        }
+        if (watch != null) {
+            watch.end(); // if the watchdog gave up on the PDF, result is complete already
+        }
+        metrics.totalNanos = System.nanoTime() - start;
+        return new ConversionResult(pdf, status, metrics, error);
+    }
+
+    // Waits for the submitted conversions to finish and stops the workers
+    @Override
+    public void close() {
+        BatchConverter.awaitWorkers(batches);
+        synchronized (this) {
+            if (workers == null) {
+                return; // nothing was submitted
+            }
+        }
+        tasks.await(workers);
+        if (pageRangeExtractor != null) {
+            pageRangeExtractor.close();
+        }
+        if (watchdog != null) {
+            watchdog.close();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PDFs that went over their time or page budget (--timeout, --max-pages), kept in the destination
+ * directory so that later runs skip them instead of stalling on them again. A file is only skipped
+ * while its size and modified date are unchanged, so a replaced PDF gets another try. Delete the
+ * list to retry all of them.
+ *
+ * Line format: size TAB lastModifiedMillis TAB reason TAB source path
+ */
+class QuarantineList implements AutoCloseable {
+    static final String FILE_NAME = ".pdf2txt-quarantine";
+
+    private final File listFile;
+    private final Map<String, long[]> entries = new HashMap<>(); // path → {size, lastModified}
+    private BufferedWriter appender; // opened on the first new entry
+
+    QuarantineList(File dest) throws IOException {
+        this(dest, FILE_NAME);
+    }
+
+    // A list under another name, e.g. one per shard (--shard)
+    QuarantineList(File dest, String fileName) throws IOException {
+        listFile = new File(dest, fileName);
+        if (listFile.exists()) {
+            load();
+        }
+    }
+
+    private void load() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(listFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                // Skip lines cut off by a crash in the middle of an append
+                if (fields.length < 4) {
+                    continue;
+                }
+                try {
+                    entries.put(fields[3], new long[]{Long.parseLong(fields[0]), Long.parseLong(fields[1])});
+                } catch (NumberFormatException e) {
+                    // Corrupted line, the file will simply be tried again
+                }
+            }
+        }
+    }
+
+    synchronized boolean contains(String path, long size, long lastModified) {
+        long[] entry = entries.get(path);
+        return entry != null && entry[0] == size && entry[1] == lastModified;
+    }
+
+    synchronized void add(String path, long size, long lastModified, String reason) throws IOException {
+        entries.put(path, new long[]{size, lastModified});
+        if (appender == null) {
+            boolean endsWithPartialLine = listFile.exists() && !ConversionManifest.endsWithNewline(listFile);
+            appender = new BufferedWriter(new FileWriter(listFile, StandardCharsets.UTF_8, true));
+            if (endsWithPartialLine) {
+                appender.write("\n"); // don't glue the new entry onto a line cut off by a crash
+            }
+        }
+        appender.write(size + "\t" + lastModified + "\t" + reason.replace('\t', ' ').replace('\n', ' ') + "\t" + path + "\n");
+        appender.flush(); // survive a crash of the run
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    File getFile() {
+        return listFile;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (appender != null) {
+            appender.close();
+        }
+    }
+}
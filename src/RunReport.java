@@ -0,0 +1,217 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects per-file timings of a conversion run and writes them as a JSON report.
+ * Only created when --report is given, so a normal run never calls System.nanoTime().
+ */
+class RunReport {
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Queue<FileMetrics> files = new ConcurrentLinkedQueue<>();
+    private long scanNanos;
+    private final Map<String, String> sections = new LinkedHashMap<>();
+
+    // Timings and sizes of a single file, filled in by the worker converting it
+    static class FileMetrics {
+        final String path;
+        final long inputBytes;
+        String status = "failed";
+        int pages;
+        long outputChars;
+        long attrNanos; // reading the file attributes while scanning, not part of totalNanos
+        long readNanos; // pipeline mode only
+        long loadNanos;
+        long extractNanos;
+        long writeNanos;
+        long totalNanos;
+
+        FileMetrics(String path, long inputBytes) {
+            this.path = path;
+            this.inputBytes = inputBytes;
+        }
+    }
+
+    void add(FileMetrics metrics) {
+        files.add(metrics);
+    }
+
+    // Time spent walking the source directory, reading attributes and filtering (summed over rescans in watch mode)
+    void addScanNanos(long scanNanos) {
+        this.scanNanos += scanNanos;
+    }
+
+    // Adds a named JSON object (e.g. pipeline queue depths) to the top level of the report
+    void addSection(String name, String json) {
+        sections.put(name, json);
+    }
+
+    void write(File reportFile, int scanned, int matching, int converted, int skipped, int failed) throws IOException {
+        long wallNanos = System.nanoTime() - startNanos;
+        // Cache hits count as converted, as in the summary, but skip loading and extraction: they are left
+        // out of the latencies and, as their page count is unknown, of the pages
+        List<FileMetrics> parsed = new ArrayList<>();
+        int cached = 0;
+        long inputBytes = 0;
+        long pages = 0;
+        long outputChars = 0;
+        for (FileMetrics m : files) {
+            boolean fromCache = m.status.equals("cached");
+            if (fromCache || m.status.equals("converted")) {
+                inputBytes += m.inputBytes;
+                outputChars += m.outputChars;
+            }
+            if (fromCache) {
+                cached++;
+            } else if (m.status.equals("converted")) {
+                parsed.add(m);
+                pages += m.pages;
+            }
+        }
+        double wallSeconds = wallNanos / 1e9;
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"startedAt\": ").append(quote(startedAt.toString())).append(",\n");
+        json.append("  \"wallTimeMs\": ").append(millis(wallNanos)).append(",\n");
+        json.append("  \"scanTimeMs\": ").append(millis(scanNanos)).append(",\n");
+        json.append("  \"files\": {\"scanned\": ").append(scanned).append(", \"matching\": ").append(matching)
+                .append(", \"converted\": ").append(converted).append(", \"cached\": ").append(cached).append(", \"skipped\": ").append(skipped)
+                .append(", \"failed\": ").append(failed).append("},\n");
+        json.append("  \"totals\": {\"inputBytes\": ").append(inputBytes).append(", \"pages\": ").append(pages)
+                .append(", \"outputChars\": ").append(outputChars).append("},\n");
+        json.append("  \"throughput\": {\"filesPerSec\": ").append(rate(parsed.size() + cached, wallSeconds))
+                .append(", \"parsedFilesPerSec\": ").append(rate(parsed.size(), wallSeconds))
+                .append(", \"pagesPerSec\": ").append(rate(pages, wallSeconds))
+                .append(", \"inputMBPerSec\": ").append(rate(inputBytes / (1024.0 * 1024.0), wallSeconds)).append("},\n");
+        json.append("  \"latencyMs\": {\n");
+        json.append("    \"total\": ").append(percentiles(parsed, m -> m.totalNanos)).append(",\n");
+        json.append("    \"attributes\": ").append(percentiles(parsed, m -> m.attrNanos)).append(",\n");
+        json.append("    \"read\": ").append(percentiles(parsed, m -> m.readNanos)).append(",\n");
+        json.append("    \"load\": ").append(percentiles(parsed, m -> m.loadNanos)).append(",\n");
+        json.append("    \"extract\": ").append(percentiles(parsed, m -> m.extractNanos)).append(",\n");
+        json.append("    \"write\": ").append(percentiles(parsed, m -> m.writeNanos)).append("\n");
+        json.append("  },\n");
+        for (Map.Entry<String, String> section : sections.entrySet()) {
+            json.append("  ").append(quote(section.getKey())).append(": ").append(section.getValue()).append(",\n");
+        }
+        json.append("  \"perFile\": [");
+        String separator = "\n";
+        for (FileMetrics m : files) {
+            json.append(separator).append("    {\"path\": ").append(quote(m.path))
+                    .append(", \"status\": ").append(quote(m.status))
+                    .append(", \"inputBytes\": ").append(m.inputBytes)
+                    .append(", \"pages\": ").append(m.pages)
+                    .append(", \"outputChars\": ").append(m.outputChars)
+                    .append(", \"attrMs\": ").append(millis(m.attrNanos))
+                    .append(", \"readMs\": ").append(millis(m.readNanos))
+                    .append(", \"loadMs\": ").append(millis(m.loadNanos))
+                    .append(", \"extractMs\": ").append(millis(m.extractNanos))
+                    .append(", \"writeMs\": ").append(millis(m.writeNanos))
+                    .append(", \"totalMs\": ").append(millis(m.totalNanos)).append("}");
+            separator = ",\n";
+        }
+        json.append(files.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+
+        Files.writeString(reportFile.toPath(), json, StandardCharsets.UTF_8);
+    }
+
+    // p50/p95/p99 (nearest rank) and max of one phase, in milliseconds
+    private static String percentiles(List<FileMetrics> metrics, ToLongFunction<FileMetrics> phase) {
+        long[] values = metrics.stream().mapToLong(phase).toArray();
+        Arrays.sort(values);
+        return "{\"p50\": " + millis(percentile(values, 50)) + ", \"p95\": " + millis(percentile(values, 95)) +
+                ", \"p99\": " + millis(percentile(values, 99)) + ", \"max\": " + millis(percentile(values, 100)) + "}";
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String rate(double amount, double seconds) {
+        return String.format(Locale.ROOT, "%.2f", seconds > 0 ? amount / seconds : 0);
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // Sits below the BufferedWriter and measures the time spent in actual writes to the file
+    static class TimingWriter extends Writer {
+        private final Writer out;
+        private final FileMetrics metrics;
+
+        TimingWriter(Writer out, FileMetrics metrics) {
+            this.out = out;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(cbuf, off, len);
+            metrics.writeNanos += System.nanoTime() - start;
+            metrics.outputChars += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(str, off, len);
+            metrics.writeNanos += System.nanoTime() - start;
+            metrics.outputChars += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long start = System.nanoTime();
+            out.flush();
+            metrics.writeNanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            long start = System.nanoTime();
+            out.close();
+            metrics.writeNanos += System.nanoTime() - start;
+        }
+    }
+}
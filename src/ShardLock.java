@@ -0,0 +1,201 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Splits a directory conversion across nodes sharing dest (--shard I/N). Every matching file belongs to
+ * one shard, chosen by a CRC-32 of its path relative to source, so all nodes agree without talking to
+ * each other. A node converts a shard while holding its lock file dest/.pdf2txt-shard-I-of-N.lock.
+ *
+ * The lock is an OS file lock, so it goes away when its process exits or dies: a restarted node, or a
+ * node started with any/N, then takes the shard over and resumes from the shard's own manifest, skipping
+ * what was already converted. The lock file itself stays, holding the last owner for display. On a
+ * shared mount the file system must support locks (e.g., NFSv4 or SMB).
+ *
+ * A node that gets through a shard writes dest/.pdf2txt-shard-I-of-N.done. A node started with any/N
+ * skips the shards whose done file changed since it started, those were finished by another node.
+ */
+class ShardLock implements AutoCloseable {
+    static final long POLL_MILLIS = 1000; // between attempts on a shard locked by another node
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private ShardLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    // The shard (1..shardCount) of a file, from its path relative to source with '/' separators
+    static int shardOf(String relativePath, int shardCount) {
+        CRC32 crc = new CRC32();
+        crc.update(relativePath.replace(File.separatorChar, '/').getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount) + 1;
+    }
+
+    static File lockFile(File dest, int shard, int shardCount) {
+        return new File(dest, ".pdf2txt-shard-" + shard + "-of-" + shardCount + ".lock");
+    }
+
+    static File doneFile(File dest, int shard, int shardCount) {
+        return new File(dest, ".pdf2txt-shard-" + shard + "-of-" + shardCount + ".done");
+    }
+
+    // Manifest and quarantine list of one shard, so that nodes never append to the same file
+    static String fileName(String baseName, int shard, int shardCount) {
+        return baseName + "-" + shard + "-of-" + shardCount;
+    }
+
+    // The lock of a shard, or null if another process (or this one) holds it
+    static ShardLock tryAcquire(File dest, int shard, int shardCount) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile(dest, shard, shardCount).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // held in this JVM
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            return null;
+        }
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap((owner() + ", since " + Instant.now() + "\n").getBytes(StandardCharsets.UTF_8)), 0);
+        return new ShardLock(channel, lock);
+    }
+
+    // Records that this node got through a shard, while holding its lock
+    static void markDone(File dest, int shard, int shardCount) throws IOException {
+        Files.writeString(doneFile(dest, shard, shardCount).toPath(), owner() + ", finished " + Instant.now() + "\n", StandardCharsets.UTF_8);
+    }
+
+    private static String owner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "unknown host";
+        }
+        return host + ", pid " + ProcessHandle.current().pid();
+    }
+
+    // Last owner written to a lock file, for the waiting message
+    private static String lastOwner(File dest, int shard, int shardCount) {
+        try {
+            return Files.readString(lockFile(dest, shard, shardCount).toPath(), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    // Content of a done file, "" if there is none. Every node writes a different one, as it holds the time
+    private static String lastDone(File dest, int shard, int shardCount) {
+        try {
+            return Files.readString(doneFile(dest, shard, shardCount).toPath(), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    // Converts the shard of options (or every shard, for any/N) with runShard, one shard at a time under its
+    // lock, waiting for shards locked by other nodes. With any/N, shards finished by another node since this
+    // one started are skipped. Returns the summaries of the shards converted here.
+    static List<ConversionSummary> runShards(File dest, ConversionOptions options, PrintStream out,
+                                             IntFunction<ConversionSummary> runShard) {
+        int shardCount = options.getShardCount();
+        List<Integer> pending = new ArrayList<>();
+        if (options.getShardIndex() > 0) {
+            pending.add(options.getShardIndex());
+        } else {
+            for (int shard = 1; shard <= shardCount; shard++) {
+                pending.add(shard);
+            }
+        }
+        try {
+            Files.createDirectories(dest.toPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("\nUnable to create destination directory: " + dest.getAbsolutePath());
+        }
+
+        // A done file from an earlier run does not count, the shard may have new files since
+        Map<Integer, String> doneAtStart = new HashMap<>();
+        if (options.getShardIndex() == 0) {
+            for (int shard : pending) {
+                doneAtStart.put(shard, lastDone(dest, shard, shardCount));
+            }
+        }
+
+        List<ConversionSummary> summaries = new ArrayList<>();
+        List<Integer> announced = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            boolean converted = false;
+            for (Iterator<Integer> it = pending.iterator(); it.hasNext(); ) {
+                int shard = it.next();
+                try (ShardLock lock = tryAcquire(dest, shard, shardCount)) {
+                    if (lock == null) {
+                        if (!announced.contains(shard)) {
+                            out.println("Shard " + shard + "/" + shardCount + " is locked by another node (" +
+                                    lastOwner(dest, shard, shardCount) + "), waiting for it.");
+                            announced.add(shard);
+                        }
+                        continue;
+                    }
+                    String done = lastDone(dest, shard, shardCount);
+                    if (doneAtStart.containsKey(shard) && !done.equals(doneAtStart.get(shard))) {
+                        out.println("Shard " + shard + "/" + shardCount + " was converted by another node (" + done + "), skipping it.");
+                    } else {
+                        summaries.add(runShard.apply(shard));
+                        try {
+                            markDone(dest, shard, shardCount);
+                        } catch (IOException e) {
+                            throw new IllegalArgumentException("\nUnable to write to destination directory: " + dest.getAbsolutePath());
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("\nUnable to lock shard " + shard + "/" + shardCount + " in: " +
+                            dest.getAbsolutePath() + "\nThe destination file system must support file locks.");
+                }
+                it.remove();
+                converted = true;
+            }
+            if (!pending.isEmpty() && !converted) {
+                try {
+                    Thread.sleep(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a container file written in --container mode: the text of many PDFs appended to one file
+ * (rolled over into FILE.1, FILE.2, ... when --roll-size is set), plus an index FILE.idx that maps
+ * each source path to its byte range. Entries can be iterated in order or fetched by source path.
+ *
+ * Index line format: part file name TAB offset TAB length TAB text bytes TAB gz|raw TAB source path
+ */
+public class TextContainer implements Closeable {
+    static final String INDEX_SUFFIX = ".idx";
+
+    private final File dir;
+    private final List<Entry> entries;
+    private final Map<String, Entry> byName = new HashMap<>();
+    private final Map<String, FileChannel> channels = new LinkedHashMap<>();
+
+    // One document's text: where it is stored and how
+    public static class Entry {
+        public final String name;
+        public final String part;
+        public final long offset;
+        public final long length;
+        public final long textBytes;
+        public final boolean compressed;
+
+        Entry(String name, String part, long offset, long length, long textBytes, boolean compressed) {
+            this.name = name;
+            this.part = part;
+            this.offset = offset;
+            this.length = length;
+            this.textBytes = textBytes;
+            this.compressed = compressed;
+        }
+
+        String toIndexLine() {
+            return part + "\t" + offset + "\t" + length + "\t" + textBytes + "\t" + (compressed ? "gz" : "raw") + "\t" + name + "\n";
+        }
+    }
+
+    private TextContainer(File dataFile) throws IOException {
+        this.dir = dataFile.getAbsoluteFile().getParentFile();
+        this.entries = readIndex(indexFile(dataFile));
+        for (Entry entry : entries) {
+            byName.put(entry.name, entry); // a later entry for the same source replaces the earlier one
+        }
+    }
+
+    public static TextContainer open(File dataFile) throws IOException {
+        return new TextContainer(dataFile);
+    }
+
+    // All entries in the order they were written
+    public List<Entry> entries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    // Latest entry for a source path (relative to the source directory), or null
+    public Entry find(String name) {
+        return byName.get(name);
+    }
+
+    public String readText(String name) throws IOException {
+        Entry entry = find(name);
+        return entry == null ? null : readText(entry);
+    }
+
+    public String readText(Entry entry) throws IOException {
+        try (InputStream in = openStream(entry)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // UTF-8 text of the entry, decompressed if needed
+    public InputStream openStream(Entry entry) throws IOException {
+        FileChannel channel;
+        synchronized (channels) {
+            channel = channels.get(entry.part);
+            if (channel == null) {
+                channel = FileChannel.open(new File(dir, entry.part).toPath(), StandardOpenOption.READ);
+                channels.put(entry.part, channel);
+            }
+        }
+        byte[] bytes = new byte[Math.toIntExact(entry.length)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = entry.offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Container part " + entry.part + " is shorter than its index says");
+            }
+            position += read;
+        }
+        InputStream in = new ByteArrayInputStream(bytes);
+        return entry.compressed ? new GZIPInputStream(in) : in;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (channels) {
+            for (FileChannel channel : channels.values()) {
+                channel.close();
+            }
+            channels.clear();
+        }
+    }
+
+    static File indexFile(File dataFile) {
+        return new File(dataFile.getPath() + INDEX_SUFFIX);
+    }
+
+    static List<Entry> readIndex(File indexFile) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!indexFile.exists()) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 6);
+                // Skip lines cut off by a crash in the middle of an append
+                if (fields.length < 6) {
+                    continue;
+                }
+                try {
+                    entries.add(new Entry(fields[5], fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                            Long.parseLong(fields[3]), fields[4].equals("gz")));
+                } catch (NumberFormatException e) {
+                    // Corrupted line, ignore the entry
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,247 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Appends the text of each converted PDF to one container file (see TextContainer for the layout),
+ * instead of creating one TXT file per PDF. Data goes out in large sequential writes; index lines are
+ * only written after the data they point to is flushed, so a crash never leaves an index entry
+ * pointing at missing data. Reopening an existing container continues it and drops any data
+ * written after the last indexed entry.
+ */
+class TextContainerWriter implements Closeable {
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int INDEX_FLUSH_CHARS = 64 * 1024;
+
+    private final File dataFile;
+    private final boolean compress;
+    private final int compressionLevel;
+    private final long rollBytes; // 0 → never roll over
+    private final Set<String> names = new HashSet<>();
+    private final Writer indexWriter;
+    private final StringBuilder pendingIndex = new StringBuilder();
+
+    private int partNumber = 0;
+    private String partName;
+    private long partSize = 0;
+    private int partCount = 1;
+    private int entryCount = 0;
+    private OutputStream out;
+
+    TextContainerWriter(File dataFile, boolean compress, long rollBytes) throws IOException {
+        this(dataFile, compress, Deflater.DEFAULT_COMPRESSION, rollBytes);
+    }
+
+    TextContainerWriter(File dataFile, boolean compress, int compressionLevel, long rollBytes) throws IOException {
+        this.dataFile = dataFile.getAbsoluteFile();
+        this.compress = compress;
+        this.compressionLevel = compressionLevel;
+        this.rollBytes = rollBytes;
+        this.partName = this.dataFile.getName();
+
+        File indexFile = TextContainer.indexFile(this.dataFile);
+        List<TextContainer.Entry> existing = TextContainer.readIndex(indexFile);
+        if (!existing.isEmpty()) {
+            // Continue in the last part, right after its last indexed entry
+            partName = existing.get(existing.size() - 1).part;
+            partNumber = partNumber(partName);
+            partCount = partNumber + 1;
+            for (TextContainer.Entry entry : existing) {
+                names.add(entry.name);
+                if (entry.part.equals(partName)) {
+                    partSize = Math.max(partSize, entry.offset + entry.length);
+                }
+            }
+            entryCount = existing.size();
+        }
+        truncatePart(partFile(), partSize);
+        out = new BufferedOutputStream(new FileOutputStream(partFile(), true), BUFFER_SIZE);
+
+        boolean endsWithPartialLine = indexFile.length() > 0 && !endsWithNewline(indexFile);
+        indexWriter = new OutputStreamWriter(new FileOutputStream(indexFile, true), StandardCharsets.UTF_8);
+        if (endsWithPartialLine) {
+            indexWriter.write("\n"); // don't glue new entries onto a line cut off by a crash
+        }
+    }
+
+    // Entries written by this or an earlier run
+    synchronized boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    // A writer that buffers (and optionally compresses) one document's text and appends it on close
+    Writer openEntry(String name, RunReport.FileMetrics metrics) throws IOException {
+        return new EntryWriter(name, metrics);
+    }
+
+    synchronized void append(String name, byte[] data, long textBytes) throws IOException {
+        if (rollBytes > 0 && partSize > 0 && partSize + data.length > rollBytes) {
+            roll();
+        }
+        out.write(data);
+        pendingIndex.append(new TextContainer.Entry(name, partName, partSize, data.length, textBytes, compress).toIndexLine());
+        partSize += data.length;
+        names.add(name);
+        entryCount++;
+
+        if (pendingIndex.length() >= INDEX_FLUSH_CHARS) {
+            flush();
+        }
+    }
+
+    // Data first, then the index lines pointing at it
+    synchronized void flush() throws IOException {
+        out.flush();
+        indexWriter.write(pendingIndex.toString());
+        indexWriter.flush();
+        pendingIndex.setLength(0);
+    }
+
+    private void roll() throws IOException {
+        flush();
+        out.close();
+        partNumber++;
+        partCount++;
+        partName = dataFile.getName() + "." + partNumber;
+        partSize = 0;
+        truncatePart(partFile(), 0);
+        out = new BufferedOutputStream(new FileOutputStream(partFile(), true), BUFFER_SIZE);
+    }
+
+    synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    synchronized int getPartCount() {
+        return partCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        out.close();
+        indexWriter.close();
+    }
+
+    private File partFile() {
+        return new File(dataFile.getParentFile(), partName);
+    }
+
+    // FILE → 0, FILE.1 → 1, ...
+    private int partNumber(String part) {
+        if (part.equals(dataFile.getName())) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(part.substring(dataFile.getName().length() + 1));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Unexpected part name in container index: " + part);
+        }
+    }
+
+    private static void truncatePart(File part, long length) throws IOException {
+        if (part.exists() && part.length() > length) {
+            try (RandomAccessFile raf = new RandomAccessFile(part, "rw")) {
+                raf.setLength(length);
+            }
+        }
+    }
+
+    private static boolean endsWithNewline(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    private class EntryWriter extends Writer {
+        private final String name;
+        private final RunReport.FileMetrics metrics;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final CountingOutputStream counter;
+        private final Writer encoder;
+        private boolean closed = false;
+
+        EntryWriter(String name, RunReport.FileMetrics metrics) throws IOException {
+            this.name = name;
+            this.metrics = metrics;
+            OutputStream target = compress ? TextFileWriter.gzip(buffer, 64 * 1024, compressionLevel) : buffer;
+            counter = new CountingOutputStream(target);
+            encoder = new OutputStreamWriter(counter, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            encoder.write(cbuf, off, len);
+            if (metrics != null) {
+                metrics.outputChars += len;
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            encoder.write(str, off, len);
+            if (metrics != null) {
+                metrics.outputChars += len;
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Nothing reaches the container before close
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            encoder.close(); // also finishes the gzip stream
+
+            long start = metrics != null ? System.nanoTime() : 0;
+            TextContainerWriter.this.append(name, buffer.toByteArray(), counter.count);
+            if (metrics != null) {
+                metrics.writeNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
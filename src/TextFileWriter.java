@@ -0,0 +1,236 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes one TXT file in the --charset encoding, optionally gzip-compressed, through a FileChannel.
+ * The text goes to a hidden temp file next to the target, which is only renamed to the target by
+ * commit(), so a program polling dest never sees a half-written file. Closing without a commit
+ * deletes the temp file and leaves an existing target as it was.
+ *
+ * Uncompressed text is encoded straight into a buffer of --output-buffer bytes, so every channel
+ * write is one large system call. The buffers are heap arrays: the JDK encoders only take their fast
+ * path between arrays, which is worth more than saving the copy into a direct buffer.
+ *
+ * With a PageIndex (uncompressed only), writes are split where pages start, to note the byte offset
+ * the encoded text has reached there.
+ */
+class TextFileWriter extends Writer {
+    private final Path target;
+    private final Path tempFile;
+    private final FileChannel channel;
+    private final Writer out; // null when encoding into the heap buffer
+
+    // Heap buffer path only
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private final char[] chars; // Strings are copied into it to be encoded from an array
+    private char pending; // a high surrogate waiting for the low one of the next write
+    private boolean hasPending = false;
+    private final PageIndex pageIndex; // null unless page offsets are recorded
+    private long charsWritten = 0;
+    private long bytesDrained = 0;
+
+    private boolean closed = false;
+
+    TextFileWriter(File target, Charset charset, int bufferSize, boolean gzip, int gzipLevel) throws IOException {
+        this(target, charset, bufferSize, gzip, gzipLevel, null);
+    }
+
+    TextFileWriter(File target, Charset charset, int bufferSize, boolean gzip, int gzipLevel, PageIndex pageIndex) throws IOException {
+        if (gzip && pageIndex != null) {
+            throw new IllegalArgumentException("Page offsets need uncompressed output");
+        }
+        this.pageIndex = pageIndex;
+        this.target = target.toPath();
+        this.tempFile = this.target.resolveSibling("." + target.getName() + ".tmp");
+        this.channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (gzip) {
+            OutputStream stream = gzip(new BufferedOutputStream(Channels.newOutputStream(channel), bufferSize), bufferSize, gzipLevel);
+            this.out = new OutputStreamWriter(stream, charset);
+            this.encoder = null;
+            this.buffer = null;
+            this.chars = null;
+        } else {
+            this.out = null;
+            // Same replacement of unmappable characters as FileWriter
+            this.encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.buffer = ByteBuffer.allocate(bufferSize);
+            this.chars = new char[Math.min(bufferSize, 8192)];
+        }
+    }
+
+    // GZIPOutputStream at the given Deflater level (1 fastest .. 9 smallest, -1 for the default of 6)
+    static GZIPOutputStream gzip(OutputStream out, int bufferSize, int level) throws IOException {
+        return new GZIPOutputStream(out, bufferSize) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(cbuf, off, len);
+            return;
+        }
+        while (len > 0) {
+            int n = untilNextPage(len);
+            encode(CharBuffer.wrap(cbuf, off, n), false);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(str, off, len);
+        } else {
+            while (len > 0) {
+                int n = Math.min(untilNextPage(len), chars.length);
+                str.getChars(off, off + n, chars, 0);
+                encode(CharBuffer.wrap(chars, 0, n), false);
+                off += n;
+                len -= n;
+            }
+        }
+    }
+
+    // Notes the byte offset of the pages starting here, then returns how many of len chars come before the next one
+    private int untilNextPage(int len) {
+        if (pageIndex == null) {
+            return len;
+        }
+        long next;
+        while ((next = pageIndex.nextCharOffset()) <= charsWritten) {
+            pageIndex.resolveNext(bytesDrained + buffer.position());
+        }
+        return (int) Math.min(len, next - charsWritten);
+    }
+
+    private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+        charsWritten += chars.remaining();
+        if (hasPending) {
+            // Surrogate pair split between two writes (rare, so the copy does not matter)
+            CharBuffer joined = CharBuffer.allocate(chars.remaining() + 1);
+            joined.put(pending).put(chars).flip();
+            chars = joined;
+            hasPending = false;
+        }
+        encodeFully(chars, endOfInput);
+        if (chars.hasRemaining()) {
+            pending = chars.get();
+            hasPending = true;
+        }
+    }
+
+    private void encodeFully(CharBuffer chars, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException(); // not reached with REPLACE
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesDrained += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        } else {
+            drain();
+        }
+    }
+
+    // Finishes the file and renames it to the target, replacing an existing one
+    void commit() throws IOException {
+        if (closed) {
+            return;
+        }
+        finish();
+        if (pageIndex != null) {
+            // In place before the TXT file it describes
+            pageIndex.write(PageIndex.indexFile(target.toFile()));
+        }
+        try {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        closed = true; // after a failed commit, close() deletes the temp file
+    }
+
+    private void finish() throws IOException {
+        try {
+            if (out != null) {
+                out.close(); // also finishes the gzip stream and closes the channel
+                return;
+            }
+            // A lone high surrogate left at the end is replaced
+            encodeFully(hasPending ? CharBuffer.wrap(new char[]{pending}) : CharBuffer.allocate(0), true);
+            hasPending = false;
+            while (encoder.flush(buffer).isOverflow()) {
+                drain();
+            }
+            drain();
+            if (pageIndex != null) {
+                untilNextPage(0);
+                pageIndex.finish(bytesDrained);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Without a commit the text is discarded
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (out != null) {
+                out.close(); // releases the deflater
+            }
+        } catch (IOException e) {
+            // Discarded anyway
+        } finally {
+            channel.close();
+        }
+        Files.deleteIfExists(tempFile);
+    }
+}
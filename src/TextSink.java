@@ -0,0 +1,88 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.Consumer;
+
+/**
+ * Where the library API (see PdfConverter) writes the text of one PDF. The sink is opened once the
+ * PDF has been parsed, so a corrupted file never opens it, and the converter closes the returned
+ * writer when the text is complete.
+ */
+public interface TextSink {
+
+    Writer open() throws IOException;
+
+    // A text file in UTF-8, replaced if it exists. Missing parent folders are created
+    static TextSink toFile(File file) {
+        return toFile(file, StandardCharsets.UTF_8);
+    }
+
+    static TextSink toFile(File file, Charset charset) {
+        return () -> {
+            File parent = file.getAbsoluteFile().getParentFile();
+            Files.createDirectories(parent.toPath());
+            Files.deleteIfExists(file.toPath());
+            return Files.newBufferedWriter(file.toPath(), charset);
+        };
+    }
+
+    // Text as UTF-8 into a stream owned by the caller: flushed when the text is complete, but not closed
+    static TextSink toStream(OutputStream out) {
+        return () -> new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        }, StandardCharsets.UTF_8));
+    }
+
+    // Keeps the whole text in memory, for small documents
+    static InMemory inMemory() {
+        return new InMemory();
+    }
+
+    // Hands the text to the callback in chunks of up to 8K characters, as it is extracted
+    static TextSink callback(Consumer<String> chunks) {
+        return () -> new BufferedWriter(new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                chunks.accept(new String(cbuf, off, len));
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 8192);
+    }
+
+    class InMemory implements TextSink {
+        private final StringWriter text = new StringWriter();
+
+        @Override
+        public Writer open() {
+            text.getBuffer().setLength(0);
+            return text;
+        }
+
+        public String getText() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Matches file names against a * and ? wildcard without a regex: the parts between the *s are compared
+ * in place, the first one as a prefix and the last one as a suffix, so 'report_*.pdf' costs two short
+ * comparisons per name and never backtracks. Patterns that are not plain wildcards fall back to the regex.
+ */
+class WildcardMatcher {
+    private final String[] parts; // the literal parts between *s, '?' matches any one character
+    private final boolean startsWithStar;
+    private final boolean endsWithStar;
+    private final boolean ignoreCase;
+    private final int minLength;
+    private final Pattern fallback; // null for plain wildcards
+
+    private WildcardMatcher(String wildcard, boolean ignoreCase) {
+        List<String> literals = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= wildcard.length(); i++) {
+            if (i == wildcard.length() || wildcard.charAt(i) == '*') {
+                if (i > start) {
+                    literals.add(wildcard.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        this.parts = literals.toArray(new String[0]);
+        this.startsWithStar = wildcard.startsWith("*");
+        this.endsWithStar = wildcard.endsWith("*");
+        this.ignoreCase = ignoreCase;
+        int length = 0;
+        for (String part : parts) {
+            length += part.length();
+        }
+        this.minLength = length;
+        this.fallback = null;
+    }
+
+    private WildcardMatcher(Pattern fallback) {
+        this.parts = null;
+        this.startsWithStar = false;
+        this.endsWithStar = false;
+        this.ignoreCase = false;
+        this.minLength = 0;
+        this.fallback = fallback;
+    }
+
+    static WildcardMatcher compile(String wildcard, boolean ignoreCase) {
+        return new WildcardMatcher(wildcard, ignoreCase);
+    }
+
+    // Turns a pattern built by Pdf2Txt.convertWildcardToRegex back into a wildcard, any other pattern is kept as a regex
+    static WildcardMatcher fromPattern(Pattern pattern) {
+        int flags = pattern.flags();
+        String wildcard = toWildcard(pattern.pattern());
+        if (wildcard == null || (flags != 0 && flags != Pattern.CASE_INSENSITIVE)) {
+            return new WildcardMatcher(pattern);
+        }
+        return new WildcardMatcher(wildcard, flags == Pattern.CASE_INSENSITIVE);
+    }
+
+    // '^' + (escaped literal | '.*' | '.')... + '$', or null
+    private static String toWildcard(String regex) {
+        if (!regex.startsWith("^") || !regex.endsWith("$")) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        String body = regex.substring(1, regex.length() - 1);
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                if (i + 1 == body.length() || Character.isLetterOrDigit(body.charAt(i + 1))) {
+                    return null; // \d, \w, ... are character classes, not escaped literals
+                }
+                char escaped = body.charAt(++i);
+                if (escaped == '*' || escaped == '?') {
+                    return null; // no way to express a literal * or ? in a wildcard
+                }
+                sb.append(escaped);
+            } else if (c == '.') {
+                if (i + 1 < body.length() && body.charAt(i + 1) == '*') {
+                    sb.append('*');
+                    i++;
+                } else {
+                    sb.append('?');
+                }
+            } else if ("^$+*?()[]{}|".indexOf(c) >= 0) {
+                return null;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    boolean matches(String name) {
+        if (fallback != null) {
+            return fallback.matcher(name).matches();
+        }
+        if (name.length() < minLength) {
+            return false;
+        }
+        if (parts.length == 0) {
+            return startsWithStar || name.isEmpty(); // '*' or ''
+        }
+        if (!startsWithStar && !endsWithStar && parts.length == 1) {
+            return name.length() == parts[0].length() && regionMatches(name, 0, parts[0]);
+        }
+
+        int from = 0;
+        int first = 0;
+        int last = parts.length - 1;
+        if (!startsWithStar) {
+            if (!regionMatches(name, 0, parts[0])) {
+                return false;
+            }
+            from = parts[0].length();
+            first = 1;
+        }
+        int to = name.length();
+        if (!endsWithStar) {
+            String suffix = parts[last];
+            if (to - suffix.length() < from || !regionMatches(name, to - suffix.length(), suffix)) {
+                return false;
+            }
+            to -= suffix.length();
+            last--;
+        }
+        // The parts in between go to their leftmost position, which leaves the most room for the rest
+        for (int p = first; p <= last; p++) {
+            int at = indexOf(name, parts[p], from, to);
+            if (at < 0) {
+                return false;
+            }
+            from = at + parts[p].length();
+        }
+        return true;
+    }
+
+    private int indexOf(String name, String part, int from, int to) {
+        for (int i = from; i + part.length() <= to; i++) {
+            if (regionMatches(name, i, part)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(String name, int offset, String part) {
+        for (int i = 0; i < part.length(); i++) {
+            char p = part.charAt(i);
+            if (p == '?') {
+                continue;
+            }
+            char c = name.charAt(offset + i);
+            if (c != p && !(ignoreCase && equalsIgnoreCaseAscii(c, p))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Pattern.CASE_INSENSITIVE without UNICODE_CASE only folds US-ASCII letters
+    private static boolean equalsIgnoreCaseAscii(char a, char b) {
+        if (a >= 'A' && a <= 'Z') {
+            a += 'a' - 'A';
+        }
+        if (b >= 'A' && b <= 'Z') {
+            b += 'a' - 'A';
+        }
+        return a == b;
+    }
+}
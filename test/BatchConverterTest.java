@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+class BatchConverterTest {
+    private static final Pattern PDFS = Pattern.compile("^.*\\.pdf$");
+    private static final int THREADS = 3;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Test
+    public void testRun_countsEveryFileOnceUnderContention(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        for (int i = 1; i <= 40; i++) {
+            TestPdfs.createPdf(new File(inputDir, "doc" + i + ".pdf"), "Document " + i + ".");
+        }
+        for (int i = 1; i <= 10; i++) {
+            TestPdfs.createCorruptedPdf(new File(inputDir, "corrupted" + i + ".pdf"));
+        }
+
+        Map<ConversionResult.Status, Integer> first = new EnumMap<>(ConversionResult.Status.class);
+        ConversionSummary firstSummary = run(inputDir, outputDir, first);
+
+        // ---- ✅ Every file counted once, the per-file results add up to the summary ----
+        assertEquals(50, firstSummary.getMatching());
+        assertEquals(40, firstSummary.getConverted());
+        assertEquals(10, firstSummary.getFailed());
+        assertEquals(40, (int) first.get(ConversionResult.Status.CONVERTED));
+        assertEquals(10, (int) first.get(ConversionResult.Status.FAILED));
+        for (int i = 1; i <= 40; i++) {
+            assertTrue(new File(outputDir, "doc" + i + ".txt").exists(), "doc" + i + ".txt");
+        }
+
+        // Second run: the converted files are skipped, new ones are converted, the corrupted ones fail again
+        for (int i = 41; i <= 50; i++) {
+            TestPdfs.createPdf(new File(inputDir, "doc" + i + ".pdf"), "Document " + i + ".");
+        }
+        Map<ConversionResult.Status, Integer> second = new EnumMap<>(ConversionResult.Status.class);
+        ConversionSummary secondSummary = run(inputDir, outputDir, second);
+
+        // ---- ✅ Skipped, converted and failed files counted apart ----
+        assertEquals(60, secondSummary.getMatching());
+        assertEquals(40, secondSummary.getSkipped());
+        assertEquals(10, secondSummary.getConverted());
+        assertEquals(10, secondSummary.getFailed());
+        assertEquals(40, (int) second.get(ConversionResult.Status.SKIPPED));
+        assertEquals(10, (int) second.get(ConversionResult.Status.CONVERTED));
+        assertEquals(10, (int) second.get(ConversionResult.Status.FAILED));
+
+        // ---- ✅ Files converted in parallel ----
+        // ---- 🚫 Never more at once than --threads ----
+        assertTrue(maxRunning.get() > 1, "Files were not converted in parallel.");
+        assertTrue(maxRunning.get() <= THREADS, maxRunning.get() + " files at once on " + THREADS + " threads.");
+    }
+
+    // Runs one incremental conversion, counting the results by status. Each result holds its worker
+    // a little, so that the workers overlap and the most at once can be seen
+    private ConversionSummary run(File inputDir, File outputDir, Map<ConversionResult.Status, Integer> statuses) {
+        ConversionOptions options = new ConversionOptions().threads(THREADS).maxInFlight(2 * THREADS).incremental(true).quiet(true);
+        BatchConverter converter = new BatchConverter(inputDir, outputDir, PDFS, new Date(0), new Date(), options);
+        converter.setResultListener(result -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (statuses) {
+                statuses.merge(result.getStatus(), 1, Integer::sum);
+            }
+            running.decrementAndGet();
+        });
+        converter.run();
+        return converter.getSummary();
+    }
+}
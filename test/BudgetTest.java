@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+class BudgetTest {
+    private static final IntFunction<String> PAGE_TEXT = i -> "Budget page " + i + " of the contract.";
+
+    @Test
+    public void testStripper_stopsOncePastDeadline(@TempDir File inputDir) throws Exception {
+        File pdf = new File(inputDir, "pages.pdf");
+        TestPdfs.createPdf(pdf, 3, PAGE_TEXT);
+
+        try (PDDocument document = PDDocument.load(pdf)) {
+            // ---- ✅ Without a deadline the output is the same as a plain stripper ----
+            BudgetedTextStripper stripper = new BudgetedTextStripper();
+            StringWriter text = new StringWriter();
+            stripper.setDeadline(0);
+            stripper.writeText(document, text);
+            assertEquals(new PDFTextStripper().getText(document), text.toString());
+
+            // ---- 🚫 Past the deadline, extraction gives up at the first page ----
+            stripper.setDeadline(System.nanoTime() - 1);
+            StringWriter partial = new StringWriter();
+            assertThrows(BudgetedTextStripper.BudgetExceededException.class, () -> stripper.writeText(document, partial));
+            assertFalse(partial.toString().contains("Budget page"), "No page should be extracted past the deadline.");
+        }
+    }
+
+    @Test
+    public void testConvertPdfs_overBudgetQuarantinedAndSkipped(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        TestPdfs.createPdf(new File(inputDir, "short.pdf"), 1, PAGE_TEXT);
+        TestPdfs.createPdf(new File(inputDir, "long.pdf"), 3, PAGE_TEXT);
+        Pattern pattern = Pattern.compile("^.*\\.pdf$");
+
+        ConversionSummary first;
+        try (PdfConverter converter = new PdfConverter(new ConversionOptions().maxPages(2).quiet(true))) {
+            first = converter.convertDirectory(inputDir, outputDir, pattern, new Date(0), new Date(), null).join();
+        }
+
+        // ---- ✅ Files within budget are converted ----
+        assertTrue(new File(outputDir, "short.txt").exists());
+
+        // ---- 🚫 Files over budget fail, leave no TXT and are quarantined ----
+        assertEquals(1, first.getFailed());
+        assertFalse(new File(outputDir, "long.txt").exists());
+        String list = Files.readString(new File(outputDir, QuarantineList.FILE_NAME).toPath());
+        assertTrue(list.contains(new File(inputDir, "long.pdf").getAbsolutePath()), "Quarantine list should name the file.");
+
+        // ---- ✅ The next run skips the quarantined file without loading it ----
+        ConversionSummary second;
+        try (PdfConverter converter = new PdfConverter(new ConversionOptions().maxPages(2).quiet(true))) {
+            second = converter.convertDirectory(inputDir, outputDir, pattern, new Date(0), new Date(), null).join();
+        }
+        assertEquals(1, second.getQuarantined());
+        assertEquals(0, second.getFailed());
+        assertEquals(1, second.getConverted());
+    }
+
+    @Test
+    public void testWatchdog_interruptsThenGivesUp() throws Exception {
+        try (BudgetWatchdog watchdog = new BudgetWatchdog(200)) {
+            // ---- ✅ A worker blocked at its deadline is interrupted, and goes on with a clear flag ----
+            BudgetWatchdog.Watch watch = watchdog.watch(BudgetedTextStripper.deadline(100), null);
+            assertThrows(InterruptedException.class, () -> Thread.sleep(10_000));
+            assertTrue(watch.isExpired());
+            assertFalse(watch.end());
+            assertFalse(Thread.currentThread().isInterrupted());
+
+            // ---- 🚫 A worker that ignores the interrupt is given up on, and not waited for ----
+            ExecutorService executor = Executors.newSingleThreadExecutor(BatchConverter.workerThreadFactory("budget-test-"));
+            BudgetWatchdog.Tasks tasks = new BudgetWatchdog.Tasks();
+            CountDownLatch abandoned = new CountDownLatch(1);
+            AtomicBoolean release = new AtomicBoolean();
+            AtomicBoolean endedAbandoned = new AtomicBoolean();
+            tasks.execute(executor, () -> {
+                BudgetWatchdog.Watch stuck = watchdog.watch(BudgetedTextStripper.deadline(100), abandoned::countDown);
+                while (!release.get()) {
+                    Thread.onSpinWait(); // like PDFBox inside a parse
+                }
+                endedAbandoned.set(stuck.end());
+            });
+            assertTrue(abandoned.await(5, TimeUnit.SECONDS), "The stuck worker should be given up on.");
+            long start = System.nanoTime();
+            tasks.await(executor);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "Waiting for the tasks should not wait for the stuck worker.");
+            assertFalse(executor.isTerminated());
+
+            release.set(true);
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(endedAbandoned.get());
+        }
+    }
+
+    @Test
+    public void testSubmit_loadThatHangsIsGivenUp(@TempDir File inputDir) throws Exception {
+        // A named pipe without a writer: opening it blocks inside PDDocument.load, which ignores interrupts
+        File pdf = new File(inputDir, "stuck.pdf");
+        boolean created;
+        try {
+            created = new ProcessBuilder("mkfifo", pdf.getAbsolutePath()).start().waitFor() == 0;
+        } catch (IOException e) {
+            created = false;
+        }
+        assumeTrue(created, "Needs mkfifo to simulate a load that hangs.");
+
+        long start = System.nanoTime();
+        try {
+            try (PdfConverter converter = new PdfConverter(new ConversionOptions().fileTimeoutMillis(200))) {
+                ConversionResult result = converter.submit(pdf, TextSink.inMemory()).get(30, TimeUnit.SECONDS);
+
+                // ---- 🚫 The PDF fails as over budget once the grace period is over, while PDFBox is still loading it ----
+                assertEquals(ConversionResult.Status.FAILED, result.getStatus());
+                assertTrue(result.getError() instanceof BudgetedTextStripper.BudgetExceededException, String.valueOf(result.getError()));
+            }
+
+            // ---- ✅ Closing the converter does not wait for the stuck worker either ----
+            long elapsed = System.nanoTime() - start;
+            assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(200 + BudgetWatchdog.GRACE_MILLIS + 3000), "Took " + elapsed / 1_000_000 + " ms.");
+        } finally {
+            // Let the stuck load fail, opening the pipe for writing returns once the loader has it open for reading
+            Thread unblock = new Thread(() -> {
+                try {
+                    new FileOutputStream(pdf).close();
+                } catch (IOException e) {
+                    // Nothing left to unblock
+                }
+            });
+            unblock.setDaemon(true);
+            unblock.start();
+        }
+    }
+}
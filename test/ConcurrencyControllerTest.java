@@ -0,0 +1,111 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.regex.Pattern;
+
+class ConcurrencyControllerTest {
+
+    @Test
+    public void testDecide_rampsWhileImprovingAndSettles() throws Exception {
+        // No timer: the intervals are played by calling decide
+        try (ConcurrencyController controller = new ConcurrencyController(8, 0)) {
+            // ---- ✅ Doubles while throughput improves, steps back when it stops ----
+            fill(controller);
+            assertEquals("ramp up", controller.decide(0.3, 0.0, 10));
+            fill(controller);
+            assertEquals("ramp up", controller.decide(0.3, 0.0, 19));
+            fill(controller);
+            assertEquals("ramp up", controller.decide(0.3, 0.0, 30));
+            assertEquals(8, controller.getLimit());
+            assertEquals("step back", controller.decide(0.3, 0.0, 29));
+            assertEquals(4, controller.getLimit());
+
+            // ---- ✅ Holds, then probes one more and comes back to the same limit ----
+            for (int i = 0; i < ConcurrencyController.PROBE_AFTER; i++) {
+                assertEquals("hold", controller.decide(0.3, 0.0, 30));
+            }
+            assertEquals("ramp up", controller.decide(0.3, 0.0, 30));
+            assertEquals(5, controller.getLimit());
+            assertEquals("step back", controller.decide(0.3, 0.0, 30));
+            assertEquals(4, controller.getLimit());
+
+            // ---- 🚫 Halves on a full heap after GC or on long GC pauses ----
+            assertEquals("back off", controller.decide(0.9, 0.0, 30));
+            assertEquals(2, controller.getLimit());
+            assertEquals("back off", controller.decide(0.3, 0.5, 30));
+            assertEquals(1, controller.getLimit());
+        }
+    }
+
+    @Test
+    public void testAcquire_holdsBackDocumentsThatDoNotFitTheHeap() throws Exception {
+        try (ConcurrencyController controller = new ConcurrencyController(4, 0)) {
+            controller.acquire(1024);
+            controller.decide(0.3, 0.0, 10);
+            assertEquals(2, controller.getLimit());
+
+            // ---- 🚫 Under the limit, but a file as large as the heap waits for the running one ----
+            Thread huge = new Thread(() -> {
+                try {
+                    controller.acquire(Runtime.getRuntime().maxMemory());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            huge.start();
+            huge.join(300);
+            assertTrue(huge.isAlive(), "The large file should wait while another one is running.");
+
+            // ---- ✅ Runs alone once the other one is done ----
+            controller.release(2);
+            huge.join(5000);
+            assertFalse(huge.isAlive(), "The large file should start once nothing else is running.");
+        }
+    }
+
+    @Test
+    public void testConvertPdfs_adaptiveConvertsAllAndReportsDecisions(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        for (int i = 1; i <= 6; i++) {
+            TestPdfs.createPdf(new File(inputDir, "invoice" + i + ".pdf"), "Invoice " + i);
+        }
+        File reportFile = new File(outputDir, "report.json");
+        ConversionOptions options = new ConversionOptions().adaptive(true).threads(4).reportFile(reportFile).quiet(true);
+
+        ConversionSummary summary;
+        try (PdfConverter converter = new PdfConverter(options)) {
+            summary = converter.convertDirectory(inputDir, outputDir, Pattern.compile("^.*\\.pdf$"), new Date(0), new Date(), null).join();
+        }
+
+        // ---- ✅ Same files as with a fixed pool, controller state in the report ----
+        assertEquals(6, summary.getConverted());
+        for (int i = 1; i <= 6; i++) {
+            assertTrue(Files.readString(new File(outputDir, "invoice" + i + ".txt").toPath()).contains("Invoice " + i));
+        }
+        String report = Files.readString(reportFile.toPath());
+        assertTrue(report.contains("\"concurrency\": {\"maxLimit\": 4"), "Report should contain the controller decisions.");
+    }
+
+    // Takes every slot the current limit allows, so that the interval counts as limited
+    private void fill(ConcurrencyController controller) throws InterruptedException {
+        while (true) {
+            Thread filler = new Thread(() -> {
+                try {
+                    controller.acquire(0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            filler.start();
+            filler.join(100);
+            if (filler.isAlive()) {
+                filler.interrupt();
+                filler.join();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+class ConversionManifestTest {
+
+    @Test
+    public void testManifest_survivesReopen(@TempDir File destDir) throws Exception {
+        try (ConversionManifest manifest = new ConversionManifest(destDir)) {
+            manifest.record("/in/a.pdf", 100, 1000, null);
+            manifest.record("/in/b.pdf", 200, 2000, "abc");
+        }
+
+        try (ConversionManifest manifest = new ConversionManifest(destDir)) {
+            // ---- ✅ Same size and date → unchanged ----
+            assertTrue(manifest.isUnchanged("/in/a.pdf", 100, 1000, null));
+            assertTrue(manifest.isUnchanged("/in/b.pdf", 200, 2000, "abc"));
+
+            // ---- 🚫 Anything different → changed ----
+            assertFalse(manifest.isUnchanged("/in/a.pdf", 101, 1000, null), "Size changed.");
+            assertFalse(manifest.isUnchanged("/in/a.pdf", 100, 1001, null), "Modified date changed.");
+            assertFalse(manifest.isUnchanged("/in/b.pdf", 200, 2000, "def"), "Hash changed.");
+            assertFalse(manifest.isUnchanged("/in/a.pdf", 100, 1000, "abc"), "No hash was recorded for a.pdf.");
+            assertFalse(manifest.isUnchanged("/in/c.pdf", 100, 1000, null), "Never converted.");
+        }
+    }
+
+    @Test
+    public void testManifest_ignoresLineCutOffByCrash(@TempDir File destDir) throws Exception {
+        File manifestFile = new File(destDir, ConversionManifest.FILE_NAME);
+        Files.writeString(manifestFile.toPath(), "100\t1000\t-\t/in/a.pdf\n200\t20", StandardCharsets.UTF_8);
+
+        try (ConversionManifest manifest = new ConversionManifest(destDir)) {
+            assertTrue(manifest.isUnchanged("/in/a.pdf", 100, 1000, null), "Complete line should be kept.");
+            manifest.record("/in/b.pdf", 200, 2000, null);
+        }
+
+        // ---- ✅ Compaction drops the broken line and keeps both entries ----
+        String content = Files.readString(manifestFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, content.split("\n").length);
+        assertTrue(content.contains("/in/a.pdf"));
+        assertTrue(content.contains("/in/b.pdf"));
+    }
+
+    @Test
+    public void testManifest_compactsWhileOpen(@TempDir File destDir) throws Exception {
+        File manifestFile = new File(destDir, ConversionManifest.FILE_NAME);
+        try (ConversionManifest manifest = new ConversionManifest(destDir)) {
+            // The same two files converted again and again, as in a long watch session
+            for (int i = 1; i <= 10 * ConversionManifest.MIN_OUTDATED_LINES; i++) {
+                manifest.record("/in/a.pdf", 100, i, null);
+                manifest.record("/in/b.pdf", 200, i, null);
+            }
+
+            // ---- ✅ Outdated lines are dropped before the file is closed, the latest entries are kept ----
+            long lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8).size();
+            assertTrue(lines <= ConversionManifest.MIN_OUTDATED_LINES + 2, lines + " lines in the manifest.");
+            manifest.record("/in/c.pdf", 300, 3000, null);
+        }
+
+        try (ConversionManifest manifest = new ConversionManifest(destDir)) {
+            assertTrue(manifest.isUnchanged("/in/a.pdf", 100, 10 * ConversionManifest.MIN_OUTDATED_LINES, null));
+            assertTrue(manifest.isUnchanged("/in/b.pdf", 200, 10 * ConversionManifest.MIN_OUTDATED_LINES, null));
+            assertTrue(manifest.isUnchanged("/in/c.pdf", 300, 3000, null));
+        }
+    }
+
+    @Test
+    public void testManifest_keepsRecordingAfterFailedCompaction(@TempDir File destDir) throws Exception {
+        // A directory in the place of the temp file makes the compaction fail, as a full disk would
+        File tmpFile = new File(destDir, ConversionManifest.FILE_NAME + ".tmp");
+        assertTrue(tmpFile.mkdir());
+        try (ConversionManifest manifest = new ConversionManifest(destDir)) {
+            boolean failed = false;
+            for (int i = 1; i <= 2 * ConversionManifest.MIN_OUTDATED_LINES && !failed; i++) {
+                try {
+                    manifest.record("/in/a.pdf", 100, i, null);
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+            assertTrue(failed, "The compaction did not run.");
+            assertTrue(tmpFile.delete());
+
+            // ---- ✅ Later conversions still recorded, the manifest still closes ----
+            manifest.record("/in/b.pdf", 200, 2000, null);
+        }
+
+        try (ConversionManifest manifest = new ConversionManifest(destDir)) {
+            assertTrue(manifest.isUnchanged("/in/b.pdf", 200, 2000, null));
+        }
+    }
+
+    @Test
+    public void testHashFile(@TempDir File dir) throws Exception {
+        File file = new File(dir, "abc.bin");
+        Files.write(file.toPath(), "abc".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.CREATE);
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ConversionManifest.hashFile(file));
+    }
+}
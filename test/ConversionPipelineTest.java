@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+class ConversionPipelineTest {
+    private static final Pattern PDFS = Pattern.compile("^.*\\.pdf$");
+
+    @Test
+    public void testPipeline_sameOutputAsDefaultMode(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        for (int i = 1; i <= 8; i++) {
+            TestPdfs.createPdf(new File(inputDir, "doc" + i + ".pdf"), "Document " + i + ", first page.", "Document " + i + ", second page.");
+        }
+        // Byte-identical copies, served from the cache once the original is in it
+        Files.copy(new File(inputDir, "doc1.pdf").toPath(), new File(inputDir, "copy1.pdf").toPath());
+        Files.copy(new File(inputDir, "doc2.pdf").toPath(), new File(inputDir, "copy2.pdf").toPath());
+        TestPdfs.createCorruptedPdf(new File(inputDir, "corrupted.pdf"));
+
+        Map<String, ConversionResult.Status> defaultFirst = convert(inputDir, new File(outputDir, "default"), new File(outputDir, "default-cache"), false);
+        Map<String, ConversionResult.Status> pipelineFirst = convert(inputDir, new File(outputDir, "pipeline"), new File(outputDir, "pipeline-cache"), true);
+
+        // ---- ✅ Same TXT files with the same text, every valid PDF converted ----
+        Map<String, String> expected = readTxtFiles(new File(outputDir, "default"));
+        assertEquals(10, expected.size());
+        assertEquals(expected, readTxtFiles(new File(outputDir, "pipeline")));
+
+        // ---- 🚫 Corrupted PDF fails in both modes and leaves no TXT behind ----
+        assertEquals(ConversionResult.Status.FAILED, defaultFirst.get("corrupted.pdf"));
+        assertEquals(ConversionResult.Status.FAILED, pipelineFirst.get("corrupted.pdf"));
+        assertFalse(expected.containsKey("corrupted.txt"));
+
+        // ---- ✅ From a filled cache: the same text, every valid PDF copied instead of parsed ----
+        Map<String, ConversionResult.Status> defaultCached = convert(inputDir, new File(outputDir, "default-again"), new File(outputDir, "default-cache"), false);
+        Map<String, ConversionResult.Status> pipelineCached = convert(inputDir, new File(outputDir, "pipeline-again"), new File(outputDir, "pipeline-cache"), true);
+        assertEquals(expected, readTxtFiles(new File(outputDir, "default-again")));
+        assertEquals(expected, readTxtFiles(new File(outputDir, "pipeline-again")));
+        assertEquals(defaultCached, pipelineCached);
+        for (Map.Entry<String, ConversionResult.Status> result : pipelineCached.entrySet()) {
+            ConversionResult.Status status = result.getKey().equals("corrupted.pdf") ? ConversionResult.Status.FAILED : ConversionResult.Status.CACHED;
+            assertEquals(status, result.getValue(), result.getKey());
+        }
+    }
+
+    // File name → status of every matching PDF
+    private Map<String, ConversionResult.Status> convert(File inputDir, File outputDir, File cacheDir, boolean pipeline) {
+        Map<String, ConversionResult.Status> results = new TreeMap<>();
+        ConversionOptions options = new ConversionOptions().pipeline(pipeline).threads(3).ioThreads(2).queueCapacity(2)
+                .cacheDir(cacheDir).quiet(true);
+        try (PdfConverter converter = new PdfConverter(options)) {
+            converter.convertDirectory(inputDir, outputDir, PDFS, new Date(0), new Date(), result -> {
+                synchronized (results) {
+                    results.put(result.getFile().getName(), result.getStatus());
+                }
+            }).join();
+        }
+        return results;
+    }
+
+    // File name → text of every TXT file in dir
+    private Map<String, String> readTxtFiles(File dir) throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        for (File txt : dir.listFiles((folder, name) -> name.endsWith(".txt"))) {
+            files.put(txt.getName(), Files.readString(txt.toPath()));
+        }
+        return files;
+    }
+}
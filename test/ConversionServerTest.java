@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ConversionServerTest {
+    private ConversionServer server;
+    private URI convertUri;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = new ConversionServer(0, new ConversionOptions().threads(2));
+        server.start();
+        convertUri = URI.create("http://127.0.0.1:" + server.getPort() + "/convert");
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testConvert_returnsExtractedText() throws Exception {
+        byte[] pdf = TestPdfs.createPdfBytes("Posted to the server.");
+        String expected;
+        try (PDDocument document = PDDocument.load(pdf)) {
+            expected = new PDFTextStripper().getText(document);
+        }
+
+        // ---- ✅ Same text as a direct extraction, for several requests on the warmed workers ----
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> response = post(pdf);
+            assertEquals(200, response.statusCode());
+            assertEquals(expected, response.body());
+        }
+    }
+
+    @Test
+    public void testConvert_rejectsInvalidRequests() throws Exception {
+        // ---- 🚫 Corrupted PDF ----
+        HttpResponse<String> corrupted = post("%PDF- corrupted content".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(422, corrupted.statusCode());
+
+        // ---- 🚫 Not a POST ----
+        HttpResponse<String> get = client.send(HttpRequest.newBuilder(convertUri).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, get.statusCode());
+    }
+
+    @Test
+    public void testConvert_enforcesLimits() throws Exception {
+        byte[] onePage = TestPdfs.createPdfBytes("Within the limits.");
+        byte[] twoPages = TestPdfs.createPdfBytes("First page.", "Second page.");
+        int maxSize = Math.max(onePage.length, twoPages.length);
+        server.stop();
+        server = new ConversionServer(0, new ConversionOptions().threads(2).maxPages(1).fileTimeoutMillis(60_000).maxRequestSize(maxSize));
+        server.start();
+        convertUri = URI.create("http://127.0.0.1:" + server.getPort() + "/convert");
+
+        // ---- ✅ Within the limits ----
+        HttpResponse<String> converted = post(onePage);
+        assertEquals(200, converted.statusCode());
+        assertTrue(converted.body().contains("Within the limits."));
+
+        // ---- 🚫 Over --max-pages ----
+        HttpResponse<String> tooManyPages = post(twoPages);
+        assertEquals(422, tooManyPages.statusCode());
+        assertTrue(tooManyPages.body().startsWith("Page budget exceeded"));
+
+        // ---- 🚫 Over --max-request-size, with a Content-Length and chunked ----
+        byte[] tooLarge = new byte[maxSize + 1];
+        assertEquals(413, post(tooLarge).statusCode());
+        HttpRequest chunked = HttpRequest.newBuilder(convertUri)
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(tooLarge))).build();
+        assertEquals(413, client.send(chunked, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    public void testConvert_givesUpOnStuckRequest() throws Exception {
+        byte[] pdf = TestPdfs.createPdfBytes("Converted meanwhile.");
+        AtomicBoolean hangNext = new AtomicBoolean(true);
+        AtomicBoolean released = new AtomicBoolean();
+        server.stop();
+        server = new ConversionServer(0, new ConversionOptions().threads(1).fileTimeoutMillis(200)) {
+            @Override
+            PDDocument load(byte[] pdfBytes) throws IOException {
+                if (hangNext.getAndSet(false)) {
+                    while (!released.get()) {
+                        Thread.onSpinWait(); // like PDFBox inside a parse, deaf to the interrupt
+                    }
+                }
+                return super.load(pdfBytes);
+            }
+        };
+        server.start();
+        convertUri = URI.create("http://127.0.0.1:" + server.getPort() + "/convert");
+        try {
+            // ---- 🚫 Stuck in PDFBox: answered once the grace period is over ----
+            long start = System.nanoTime();
+            HttpResponse<String> stuck = post(pdf);
+            long elapsed = System.nanoTime() - start;
+            assertEquals(422, stuck.statusCode());
+            assertTrue(stuck.body().startsWith("Time budget exceeded"));
+            assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(200 + BudgetWatchdog.GRACE_MILLIS + 3000), "Took " + elapsed / 1_000_000 + " ms.");
+
+            // ---- ✅ The only worker is still stuck, another one converts the next request ----
+            HttpResponse<String> next = post(pdf);
+            assertEquals(200, next.statusCode());
+            assertTrue(next.body().contains("Converted meanwhile."));
+        } finally {
+            released.set(true);
+        }
+    }
+
+    private HttpResponse<String> post(byte[] body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(convertUri).POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+}
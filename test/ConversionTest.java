@@ -1,17 +1,16 @@
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-
 import java.io.*;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.regex.Pattern;
 
 class ConversionTest {
@@ -20,17 +19,17 @@ class ConversionTest {
     public void testConvertPdfs_skipsInvalidFiles(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
         // ---- ✅ PDF with matching conditions ----
         File matchingPdf = new File(inputDir, "matching_file.PDF");
-        createDummyPdf(matchingPdf, "Matching conditions. Should be converted.");
+        TestPdfs.createPdf(matchingPdf, "Matching conditions. Should be converted.");
         matchingPdf.setLastModified(System.currentTimeMillis());
 
         // ---- 🚫 PDF with non-matching name ----
         File nonMatchingNamePdf = new File(inputDir, "file_non-matching.pdf");
-        createDummyPdf(nonMatchingNamePdf, "Non-matching name. Should be skipped.");
+        TestPdfs.createPdf(nonMatchingNamePdf, "Non-matching name. Should be skipped.");
         nonMatchingNamePdf.setLastModified(System.currentTimeMillis());
 
         // ---- 🚫 PDF with old modified date  ----
         File oldPdf = new File(inputDir, "old_file.pdf");
-        createDummyPdf(oldPdf, "Old file. Should be skipped.");
+        TestPdfs.createPdf(oldPdf, "Old file. Should be skipped.");
         oldPdf.setLastModified(100000); // Very old timestamp (1970)
 
         // ---- 🚫 Non-PDF file ----
@@ -42,7 +41,7 @@ class ConversionTest {
 
         // ---- 🚫 Corrupted PDF file ----
         File corruptedPdf = new File(inputDir, "corrupted_file.pdf");
-        createCorruptedPdf(corruptedPdf);
+        TestPdfs.createCorruptedPdf(corruptedPdf);
         corruptedPdf.setLastModified(System.currentTimeMillis());
 
         // Define pattern and date range
@@ -66,29 +65,76 @@ class ConversionTest {
         assertEquals(1, outputFiles.length, "Only one file should have been converted.");
     }
 
-    // Utility to generate dummy PDF file with text
-    private void createDummyPdf(File file, String text) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-
-            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA, 12);
-                contentStream.newLineAtOffset(100, 700);
-                contentStream.showText(text);
-                contentStream.endText();
-            }
+    @Test
+    public void testConvertPdfs_recursiveMirrorsFolders(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        // ---- ✅ PDFs at the top level and two folders deep ----
+        TestPdfs.createPdf(new File(inputDir, "top.pdf"), "Top level.");
+        File nestedDir = new File(inputDir, "2023/q1");
+        assertTrue(nestedDir.mkdirs());
+        TestPdfs.createPdf(new File(nestedDir, "nested.pdf"), "Nested.");
+
+        Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"), Pattern.CASE_INSENSITIVE);
+        ConversionOptions options = new ConversionOptions().recursive(true).threads(2);
+        Pdf2Txt.convertPdfs(inputDir, outputDir, pattern, new Date(0), new Date(), options);
+
+        // ---- ✅ Folder structure is mirrored under dest ----
+        assertEquals("Top level.", Files.readString(new File(outputDir, "top.txt").toPath()).trim());
+        assertEquals("Nested.", Files.readString(new File(outputDir, "2023/q1/nested.txt").toPath()).trim());
+
+        // ---- 🚫 Without --recursive, subfolders are ignored ----
+        File flatOutputDir = new File(outputDir, "flat");
+        assertTrue(flatOutputDir.mkdir());
+        Pdf2Txt.convertPdfs(inputDir, flatOutputDir, pattern, new Date(0), new Date());
+        assertTrue(new File(flatOutputDir, "top.txt").exists());
+        assertFalse(new File(flatOutputDir, "2023").exists(), "Subfolders should not be converted.");
+    }
+
+    @Test
+    public void testConvertPdfs_virtualThreadsMatchPool(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        // Older Java falls back to the normal pool, which the other tests cover already
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21 or later.");
+        for (int i = 1; i <= 6; i++) {
+            TestPdfs.createPdf(new File(inputDir, "doc" + i + ".pdf"), "Document " + i + ".");
+        }
+        TestPdfs.createCorruptedPdf(new File(inputDir, "corrupted.pdf"));
 
-            document.save(file);
+        Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"), Pattern.CASE_INSENSITIVE);
+        ConversionOptions options = new ConversionOptions().virtualThreads(true).threads(2);
+        Pdf2Txt.convertPdfs(inputDir, outputDir, pattern, new Date(0), new Date(), options);
+
+        // ---- ✅ Every valid PDF converted ----
+        for (int i = 1; i <= 6; i++) {
+            assertEquals("Document " + i + ".", Files.readString(new File(outputDir, "doc" + i + ".txt").toPath()).trim());
         }
+
+        // ---- 🚫 Corrupted PDF leaves no TXT behind ----
+        assertFalse(new File(outputDir, "corrupted.txt").exists());
     }
 
-    // Utility to generate corrupted PDF file (invalid PDF content)
-    private void createCorruptedPdf(File file) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(new byte[]{0x25, 0x50, 0x44, 0x46, 0x2D}); // "%PDF-" header truncated
-            fos.write("corrupted content that is not a valid PDF structure".getBytes());
+    @Test
+    public void testConvertPdfs_scheduleOrdersBySize(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        // Longer text, larger file: doc1 is the smallest, doc5 the largest
+        for (int i = 1; i <= 5; i++) {
+            TestPdfs.createPdf(new File(inputDir, "doc" + i + ".pdf"), "Document " + "text ".repeat(i * 40));
+        }
+        Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"), Pattern.CASE_INSENSITIVE);
+
+        for (ConversionOptions.Schedule schedule : new ConversionOptions.Schedule[]{
+                ConversionOptions.Schedule.LARGEST_FIRST, ConversionOptions.Schedule.SMALLEST_FIRST}) {
+            // One thread, so the results arrive in the order the files were converted
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            ConversionOptions options = new ConversionOptions().threads(1).schedule(schedule).quiet(true);
+            try (PdfConverter converter = new PdfConverter(options)) {
+                converter.convertDirectory(inputDir, outputDir, pattern, new Date(0), new Date(),
+                        result -> order.add(result.getFile().getName())).join();
+            }
+
+            // ---- ✅ Converted in size order ----
+            List<String> expected = Arrays.asList("doc5.pdf", "doc4.pdf", "doc3.pdf", "doc2.pdf", "doc1.pdf");
+            if (schedule == ConversionOptions.Schedule.SMALLEST_FIRST) {
+                Collections.reverse(expected);
+            }
+            assertEquals(expected, order, schedule.name());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+class DirectoryWatcherTest {
+    private static final Pattern PDFS = Pattern.compile("^.*\\.pdf$");
+    private static final long TIMEOUT_MILLIS = 15_000;
+
+    private final List<ConversionResult> results = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testWatch_convertsNewAndModifiedFiles(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        DirectoryWatcher watcher = startWatcher(inputDir, outputDir, new ConversionOptions().debounceMillis(200).reconcileSeconds(0));
+        try {
+            // ---- ✅ New file ----
+            TestPdfs.createPdf(new File(inputDir, "new.pdf"), "Dropped in while watching.");
+            waitForText(new File(outputDir, "new.txt"), "Dropped in while watching.");
+
+            // ---- ✅ Modified file ----
+            TestPdfs.createPdf(new File(inputDir, "seed.pdf"), "Seed, second version.");
+            waitForText(new File(outputDir, "seed.txt"), "Seed, second version.");
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    public void testWatch_waitsUntilFileIsWritten(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        DirectoryWatcher watcher = startWatcher(inputDir, outputDir, new ConversionOptions().debounceMillis(1500).reconcileSeconds(0));
+        try {
+            // Copied in two parts, with a pause shorter than the debounce interval in between
+            byte[] pdf = TestPdfs.createPdfBytes("Copied slowly.");
+            File growing = new File(inputDir, "growing.pdf");
+            Files.write(growing.toPath(), Arrays.copyOf(pdf, pdf.length / 2));
+            Thread.sleep(500);
+            Files.write(growing.toPath(), Arrays.copyOfRange(pdf, pdf.length / 2, pdf.length), StandardOpenOption.APPEND);
+            waitForText(new File(outputDir, "growing.txt"), "Copied slowly.");
+        } finally {
+            watcher.stop();
+        }
+
+        // ---- ✅ Converted once, after the last write ----
+        // ---- 🚫 Not read half-written ----
+        List<ConversionResult> growing = new ArrayList<>();
+        for (ConversionResult result : results) {
+            if (result.getFile().getName().equals("growing.pdf")) {
+                growing.add(result);
+            }
+        }
+        assertEquals(1, growing.size());
+        assertEquals(ConversionResult.Status.CONVERTED, growing.get(0).getStatus());
+    }
+
+    @Test
+    public void testWatch_rescanFindsFilesWithoutWaitingForEvents(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        // A debounce interval longer than the test, so only the rescan can convert the new file in time
+        DirectoryWatcher watcher = startWatcher(inputDir, outputDir, new ConversionOptions().debounceMillis(10 * TIMEOUT_MILLIS).reconcileSeconds(0));
+        try {
+            TestPdfs.createPdf(new File(inputDir, "missed.pdf"), "Its events were lost.");
+            watcher.requestRescan(); // as after an overflow of the notifications
+
+            // ---- ✅ Converted by the rescan ----
+            waitForText(new File(outputDir, "missed.txt"), "Its events were lost.");
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    public void testWatch_startupErrorDoesNotBlockStop(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        ConversionOptions options = new ConversionOptions().watch(true).pageIndex(true).gzip(true).quiet(true);
+        BatchConverter converter = new BatchConverter(inputDir, outputDir, PDFS, new Date(0), new Date(Long.MAX_VALUE), options);
+        DirectoryWatcher watcher = new DirectoryWatcher(converter, inputDir.toPath(), options);
+
+        // ---- 🚫 Invalid options rejected on start ----
+        assertThrows(IllegalArgumentException.class, watcher::run);
+
+        // ---- ✅ Stopping afterwards (as the shutdown hook did) returns at once ----
+        Thread stopper = new Thread(watcher::stop, "pdf2txt-stop-test");
+        stopper.setDaemon(true);
+        stopper.start();
+        stopper.join(TIMEOUT_MILLIS);
+        assertFalse(stopper.isAlive(), "stop() waits for a watch loop that never started.");
+    }
+
+    // Starts watching on its own thread, once the first pass has converted a seed file
+    private DirectoryWatcher startWatcher(File inputDir, File outputDir, ConversionOptions options) throws Exception {
+        TestPdfs.createPdf(new File(inputDir, "seed.pdf"), "Seed.");
+        options.watch(true).incremental(true).threads(2).quiet(true);
+        BatchConverter converter = new BatchConverter(inputDir, outputDir, PDFS, new Date(0), new Date(Long.MAX_VALUE), options);
+        converter.setResultListener(results::add);
+        DirectoryWatcher watcher = new DirectoryWatcher(converter, inputDir.toPath(), options);
+        Thread thread = new Thread(watcher::run, "pdf2txt-watch-test");
+        thread.setDaemon(true);
+        thread.start();
+        // The directory is registered before the first pass, so it is watched once the seed is converted
+        waitFor(() -> new File(outputDir, "seed.txt").exists(), "seed.txt was not converted by the first pass.");
+        return watcher;
+    }
+
+    private void waitForText(File txt, String text) throws Exception {
+        waitFor(() -> {
+            try {
+                return txt.exists() && Files.readString(txt.toPath()).trim().equals(text);
+            } catch (IOException e) {
+                return false;
+            }
+        }, txt.getName() + " does not contain: " + text);
+    }
+
+    private void waitFor(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.regex.Pattern;
+
+class ExtractionCacheTest {
+
+    @Test
+    public void testConvertPdfs_cacheHitSkipsParsing(@TempDir File inputDir, @TempDir File outputDir, @TempDir File cacheDir) throws Exception {
+        // Not a valid PDF, so a TXT file can only come from the cache
+        byte[] content = "%PDF- not parseable".getBytes(StandardCharsets.US_ASCII);
+        Files.write(new File(inputDir, "copy1.pdf").toPath(), content);
+        Files.write(new File(inputDir, "copy2.pdf").toPath(), content);
+
+        ExtractionCache cache = new ExtractionCache(cacheDir, 1024, false);
+        ExtractionCache.Entry entry = cache.newEntry(cache.key(ConversionManifest.hashBytes(content)));
+        entry.write("Cached text.");
+        entry.commit();
+
+        Pdf2Txt.convertPdfs(inputDir, outputDir, Pattern.compile("^.*\\.pdf$"), new Date(0), new Date(),
+                new ConversionOptions().cacheDir(cacheDir));
+
+        // ---- ✅ Both copies served from the cache without loading the PDF ----
+        for (String name : new String[]{"copy1.txt", "copy2.txt"}) {
+            File txt = new File(outputDir, name);
+            assertTrue(txt.exists(), name + " was not written from the cache.");
+            assertEquals("Cached text.", Files.readString(txt.toPath(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testConvertPdfs_cacheLinkReplacesOutput(@TempDir File inputDir, @TempDir File outputDir, @TempDir File cacheDir) throws Exception {
+        byte[] content = "%PDF- not parseable".getBytes(StandardCharsets.US_ASCII);
+        Files.write(new File(inputDir, "linked.pdf").toPath(), content);
+        ExtractionCache cache = new ExtractionCache(cacheDir, 1024, false);
+        ExtractionCache.Entry entry = cache.newEntry(cache.key(ConversionManifest.hashBytes(content)));
+        entry.write("Cached text.");
+        entry.commit();
+        File txt = new File(outputDir, "linked.txt");
+        Files.writeString(txt.toPath(), "Earlier text.");
+
+        // Twice, the second time over a TXT file that already is a link to the entry
+        for (int i = 0; i < 2; i++) {
+            Pdf2Txt.convertPdfs(inputDir, outputDir, Pattern.compile("^.*\\.pdf$"), new Date(0), new Date(),
+                    new ConversionOptions().cacheDir(cacheDir).cacheHardLink(true).quiet(true));
+
+            // ---- ✅ Earlier TXT file replaced by the cached text ----
+            // ---- 🚫 No temp file left behind ----
+            assertEquals("Cached text.", Files.readString(txt.toPath(), StandardCharsets.UTF_8));
+            assertArrayEquals(new String[]{"linked.txt"}, outputDir.list());
+        }
+    }
+
+    @Test
+    public void testEviction_leastRecentlyUsedFirst(@TempDir File cacheDir) throws Exception {
+        ExtractionCache cache = new ExtractionCache(cacheDir, 10, false);
+        put(cache, "aaaa", "1234");
+        put(cache, "bbbb", "1234");
+        assertNotNull(cache.lookup("aaaa")); // 'bbbb' is now the least recently used
+        put(cache, "cccc", "1234");
+
+        // ---- ✅ Over the limit: the least recently used entry goes ----
+        assertNotNull(cache.lookup("aaaa"));
+        assertNull(cache.lookup("bbbb"));
+        assertNotNull(cache.lookup("cccc"));
+
+        // ---- ✅ Reopened cache keeps the entries and their order ----
+        ExtractionCache reopened = new ExtractionCache(cacheDir, 10, false);
+        assertNotNull(reopened.lookup("aaaa"));
+        assertNull(reopened.lookup("bbbb"));
+
+        // ---- 🚫 Entries larger than the whole cache are not kept ----
+        put(reopened, "dddd", "12345678901");
+        assertNull(reopened.lookup("dddd"));
+    }
+
+    @Test
+    public void testEviction_skipsEntriesBeingRead(@TempDir File cacheDir) throws Exception {
+        ExtractionCache cache = new ExtractionCache(cacheDir, 10, false);
+        put(cache, "aaaa", "1234");
+        File pinned = cache.lookup("aaaa"); // read by a worker until released
+        put(cache, "bbbb", "1234");
+        assertNotNull(cache.lookup("bbbb"));
+        cache.release("bbbb"); // 'aaaa' is now the least recently used
+        put(cache, "cccc", "1234");
+
+        // ---- ✅ Over the limit: the entry being read stays, the next least recently used one goes ----
+        assertEquals("1234", Files.readString(pinned.toPath(), StandardCharsets.UTF_8));
+        assertNull(cache.lookup("bbbb"));
+
+        // ---- ✅ Once released, it is evicted like any other entry ----
+        cache.release("aaaa");
+        put(cache, "dddd", "1234");
+        assertFalse(pinned.exists());
+        assertNull(cache.lookup("aaaa"));
+    }
+
+    private void put(ExtractionCache cache, String key, String text) throws IOException {
+        ExtractionCache.Entry entry = cache.newEntry(key);
+        entry.write(text);
+        entry.commit();
+    }
+}
@@ -0,0 +1,21 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class MemoryModeTest {
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void testResolveMemoryMode() {
+        // ---- 2 GB heap, 4 documents in flight → 256 MB budget per document ----
+        long maxHeap = 2048 * MB;
+
+        assertEquals(ConversionOptions.MemoryMode.HEAP, BatchConverter.resolveMemoryMode(1 * MB, maxHeap, 4), "Small file stays on heap.");
+        assertEquals(ConversionOptions.MemoryMode.HEAP, BatchConverter.resolveMemoryMode(32 * MB, maxHeap, 4), "Edge of the heap budget.");
+        assertEquals(ConversionOptions.MemoryMode.MIXED, BatchConverter.resolveMemoryMode(33 * MB, maxHeap, 4));
+        assertEquals(ConversionOptions.MemoryMode.MIXED, BatchConverter.resolveMemoryMode(256 * MB, maxHeap, 4));
+        assertEquals(ConversionOptions.MemoryMode.TEMP, BatchConverter.resolveMemoryMode(257 * MB, maxHeap, 4), "Larger than the budget.");
+
+        // ---- More documents in flight → smaller budget each ----
+        assertEquals(ConversionOptions.MemoryMode.MIXED, BatchConverter.resolveMemoryMode(32 * MB, maxHeap, 8));
+    }
+}
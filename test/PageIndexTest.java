@@ -0,0 +1,57 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+class PageIndexTest {
+    private static final IntFunction<String> PAGE_TEXT = i -> "Página " + i + " – résumé";
+
+    @Test
+    public void testConvertPdfs_pageIndexPointsAtEveryPage(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        TestPdfs.createPdf(new File(inputDir, "book.pdf"), 5, PAGE_TEXT);
+        Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"), Pattern.CASE_INSENSITIVE);
+
+        // Multi-byte characters, so that byte offsets differ from char offsets
+        ConversionOptions[] runs = {
+                new ConversionOptions().pageIndex(true),
+                new ConversionOptions().pageIndex(true).charset(StandardCharsets.UTF_16LE),
+                new ConversionOptions().pageIndex(true).pageSplitThreshold(2).pagesPerRange(2),
+                new ConversionOptions().pageIndex(true).pipeline(true)
+        };
+        for (ConversionOptions options : runs) {
+            File dest = Files.createTempDirectory(outputDir.toPath(), "run").toFile();
+            Pdf2Txt.convertPdfs(inputDir, dest, pattern, new Date(0), new Date(), options.quiet(true));
+            File txtFile = new File(dest, "book.txt");
+            Charset charset = options.getCharset();
+
+            // ---- ✅ Every page read on its own, and the pages add up to the whole file ----
+            PageIndex index = PageIndex.open(txtFile);
+            assertEquals(5, index.getPageCount());
+            StringBuilder joined = new StringBuilder();
+            for (int page = 1; page <= 5; page++) {
+                String text = index.readPage(txtFile, page, charset);
+                assertEquals("Página " + page + " – résumé", text.trim(), charset.name());
+                joined.append(text);
+            }
+            assertEquals(Files.readString(txtFile.toPath(), charset), joined.toString());
+        }
+    }
+
+    @Test
+    public void testConvertPdfs_pageIndexRejectsGzip(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        TestPdfs.createPdf(new File(inputDir, "book.pdf"), 1, PAGE_TEXT);
+        Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"), Pattern.CASE_INSENSITIVE);
+
+        // ---- 🚫 Offsets into compressed text cannot be mapped ----
+        ConversionOptions options = new ConversionOptions().pageIndex(true).gzip(true).quiet(true);
+        assertThrows(IllegalArgumentException.class,
+                () -> Pdf2Txt.convertPdfs(inputDir, outputDir, pattern, new Date(0), new Date(), options));
+    }
+}
@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+class PageRangeExtractorTest {
+
+    @Test
+    public void testExtract_parallelMatchesSequential(@TempDir File inputDir) throws Exception {
+        File pdf = new File(inputDir, "large.pdf");
+        TestPdfs.createPdf(pdf, 23, i -> "Page " + i + " of a very large document.\nSecond line on page " + i + ".");
+
+        String sequential;
+        try (PDDocument document = PDDocument.load(pdf)) {
+            StringWriter writer = new StringWriter();
+            BatchConverter.writeText(document, writer, new PDFTextStripper());
+            sequential = writer.toString();
+        }
+
+        // ---- ✅ Same bytes for ranges that divide the pages unevenly, single pages and one big range ----
+        try (PageRangeExtractor extractor = new PageRangeExtractor(4)) {
+            for (int pagesPerRange : new int[]{5, 1, 100}) {
+                StringWriter writer = new StringWriter();
+                extractor.extract(() -> PDDocument.load(pdf), 23, pagesPerRange, writer);
+
+                assertArrayEquals(sequential.getBytes(StandardCharsets.UTF_8), writer.toString().getBytes(StandardCharsets.UTF_8),
+                        "Parallel output differs from sequential with " + pagesPerRange + " page(s) per range.");
+            }
+        }
+    }
+
+    @Test
+    public void testExtract_corruptedDocumentFails(@TempDir File inputDir) throws Exception {
+        File corrupted = new File(inputDir, "corrupted.pdf");
+        try (FileOutputStream fos = new FileOutputStream(corrupted)) {
+            fos.write("%PDF- corrupted content".getBytes(StandardCharsets.US_ASCII));
+        }
+
+        // ---- 🚫 A failing range fails the whole document ----
+        try (PageRangeExtractor extractor = new PageRangeExtractor(2)) {
+            assertThrows(IOException.class, () -> extractor.extract(() -> PDDocument.load(corrupted), 10, 3, new StringWriter()));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+class PdfConverterTest {
+    private static final IntFunction<String> PAGE_TEXT = i -> "Library page " + i + " of the annual report.";
+
+    @Test
+    public void testSubmit_sinksReceiveSameText(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        File pdf = new File(inputDir, "report.pdf");
+        TestPdfs.createPdf(pdf, 3, PAGE_TEXT);
+        String expected;
+        try (PDDocument document = PDDocument.load(pdf)) {
+            expected = new PDFTextStripper().getText(document);
+        }
+
+        try (PdfConverter converter = new PdfConverter(new ConversionOptions().threads(2))) {
+            TextSink.InMemory memory = TextSink.inMemory();
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            StringBuilder chunks = new StringBuilder();
+            File txt = new File(outputDir, "sub/report.txt");
+
+            ConversionResult result = converter.submit(pdf, memory).join();
+            converter.submit(pdf, TextSink.toStream(stream)).join();
+            converter.submit(pdf, TextSink.callback(chunks::append)).join();
+            converter.submit(pdf, TextSink.toFile(txt)).join();
+
+            // ---- ✅ Every kind of sink gets the text of getText() ----
+            assertEquals(ConversionResult.Status.CONVERTED, result.getStatus());
+            assertEquals(3, result.getPages());
+            assertEquals(expected.length(), result.getOutputChars());
+            assertEquals(expected, memory.getText());
+            assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+            assertEquals(expected, chunks.toString());
+            assertEquals(expected, Files.readString(txt.toPath(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testSubmitAll_corruptedFileFailsAlone(@TempDir File inputDir) throws Exception {
+        File good = new File(inputDir, "good.pdf");
+        TestPdfs.createPdf(good, 1, PAGE_TEXT);
+        File bad = new File(inputDir, "bad.pdf");
+        Files.write(bad.toPath(), "not a pdf".getBytes(StandardCharsets.US_ASCII));
+        TextSink.InMemory badSink = TextSink.inMemory();
+
+        List<ConversionResult> results;
+        try (PdfConverter converter = new PdfConverter(new ConversionOptions())) {
+            results = converter.submitAll(Arrays.asList(good, bad),
+                    pdf -> pdf.equals(bad) ? badSink : TextSink.inMemory()).join();
+        }
+
+        // ---- ✅ Results in submission order, the good file is converted ----
+        assertEquals(good, results.get(0).getFile());
+        assertTrue(results.get(0).isSuccess());
+
+        // ---- 🚫 The corrupted file fails with its cause, and its sink is never opened ----
+        assertEquals(ConversionResult.Status.FAILED, results.get(1).getStatus());
+        assertNotNull(results.get(1).getError());
+        assertEquals("", badSink.getText());
+    }
+
+    @Test
+    public void testConvertDirectory_reportsEveryFile(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        TestPdfs.createPdf(new File(inputDir, "one.pdf"), 1, PAGE_TEXT);
+        TestPdfs.createPdf(new File(inputDir, "two.pdf"), 2, PAGE_TEXT);
+        Files.write(new File(inputDir, "bad.pdf").toPath(), "not a pdf".getBytes(StandardCharsets.US_ASCII));
+
+        ConcurrentLinkedQueue<ConversionResult> results = new ConcurrentLinkedQueue<>();
+        ConversionSummary summary;
+        try (PdfConverter converter = new PdfConverter(new ConversionOptions().quiet(true))) {
+            summary = converter.convertDirectory(inputDir, outputDir, Pattern.compile("^.*\\.pdf$"),
+                    new Date(0), new Date(), results::add).join();
+
+            // ---- ✅ Only submit starts the library's own workers ----
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                assertFalse(thread.getName().startsWith("pdf2txt-library-"), thread.getName());
+            }
+        }
+
+        // ---- ✅ Summary and per-file results match the TXT files written ----
+        assertEquals(3, summary.getMatching());
+        assertEquals(2, summary.getConverted());
+        assertEquals(1, summary.getFailed());
+        assertEquals(3, results.size());
+        assertTrue(new File(outputDir, "one.txt").exists());
+        assertTrue(new File(outputDir, "two.txt").exists());
+        for (ConversionResult result : results) {
+            assertEquals(result.getFile().getName().equals("bad.pdf"), result.getStatus() == ConversionResult.Status.FAILED);
+        }
+    }
+
+    @Test
+    public void testConvertDirectory_missingSourceCompletesExceptionally(@TempDir File outputDir) {
+        try (PdfConverter converter = new PdfConverter(new ConversionOptions().quiet(true))) {
+            CompletionException e = assertThrows(CompletionException.class, () -> converter.convertDirectory(
+                    new File(outputDir, "missing"), outputDir, Pattern.compile("^.*\\.pdf$"), new Date(0), new Date(), null).join());
+
+            // ---- 🚫 Same error as the CLI ----
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+class RunReportTest {
+    private static final Pattern PDFS = Pattern.compile("^.*\\.pdf$");
+
+    @Test
+    public void testReport_parsesWithCountsPhasesAndThroughput(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        long inputBytes = 0;
+        for (int i = 1; i <= 4; i++) {
+            File pdf = new File(inputDir, "doc" + i + ".pdf");
+            TestPdfs.createPdf(pdf, "Document " + i + ", first page.", "Document " + i + ", second page.");
+            inputBytes += pdf.length();
+        }
+        TestPdfs.createCorruptedPdf(new File(inputDir, "corrupted.pdf"));
+        File cacheDir = new File(outputDir, "cache");
+
+        Map<String, Object> report = convert(inputDir, new File(outputDir, "first"), cacheDir);
+
+        // ---- ✅ Counts of the summary, one entry per matching file ----
+        Map<String, Object> files = object(report, "files");
+        assertEquals(5, number(files, "scanned"), 0);
+        assertEquals(5, number(files, "matching"), 0);
+        assertEquals(4, number(files, "converted"), 0);
+        assertEquals(0, number(files, "cached"), 0);
+        assertEquals(1, number(files, "failed"), 0);
+        List<Object> perFile = array(report, "perFile");
+        assertEquals(5, perFile.size());
+
+        // ---- ✅ Every phase timed for a parsed file, attributes included ----
+        double attrMs = 0;
+        for (Object entry : perFile) {
+            Map<String, Object> file = cast(entry);
+            if (file.get("path").equals("corrupted.pdf")) {
+                assertEquals("failed", file.get("status"));
+                continue;
+            }
+            assertEquals("converted", file.get("status"));
+            assertEquals(2, number(file, "pages"), 0);
+            for (String phase : new String[]{"attrMs", "readMs", "loadMs", "extractMs", "writeMs"}) {
+                assertTrue(number(file, phase) >= 0, phase);
+            }
+            assertTrue(number(file, "loadMs") > 0);
+            assertTrue(number(file, "totalMs") >= number(file, "loadMs") + number(file, "extractMs"));
+            attrMs += number(file, "attrMs");
+        }
+        assertTrue(attrMs > 0, "Attribute reads were not timed.");
+        Map<String, Object> latency = object(report, "latencyMs");
+        for (String phase : new String[]{"total", "attributes", "read", "load", "extract", "write"}) {
+            assertTrue(object(latency, phase).containsKey("p99"), phase);
+        }
+        assertTrue(number(object(latency, "total"), "p50") > 0);
+
+        // ---- ✅ Throughput of the parsed files ----
+        Map<String, Object> totals = object(report, "totals");
+        assertEquals(inputBytes, number(totals, "inputBytes"), 0);
+        assertEquals(8, number(totals, "pages"), 0);
+        Map<String, Object> throughput = object(report, "throughput");
+        assertTrue(number(throughput, "filesPerSec") > 0);
+        assertEquals(number(throughput, "filesPerSec"), number(throughput, "parsedFilesPerSec"), 0);
+
+        // Second run from the filled cache
+        report = convert(inputDir, new File(outputDir, "second"), cacheDir);
+
+        // ---- ✅ Cache hits count as converted and in filesPerSec ----
+        // ---- 🚫 Not as parsed, in the pages or the latencies ----
+        files = object(report, "files");
+        assertEquals(4, number(files, "converted"), 0);
+        assertEquals(4, number(files, "cached"), 0);
+        for (Object entry : array(report, "perFile")) {
+            Map<String, Object> file = cast(entry);
+            assertEquals(file.get("path").equals("corrupted.pdf") ? "failed" : "cached", file.get("status"));
+        }
+        throughput = object(report, "throughput");
+        assertTrue(number(throughput, "filesPerSec") > 0);
+        assertEquals(0, number(throughput, "parsedFilesPerSec"), 0);
+        totals = object(report, "totals");
+        assertEquals(inputBytes, number(totals, "inputBytes"), 0);
+        assertEquals(0, number(totals, "pages"), 0);
+        assertEquals(0, number(object(object(report, "latencyMs"), "total"), "max"), 0);
+        assertEquals(4, number(object(report, "cache"), "hits"), 0);
+    }
+
+    // Converts with a report and returns the parsed report
+    private Map<String, Object> convert(File inputDir, File outputDir, File cacheDir) throws IOException {
+        File reportFile = new File(outputDir.getParentFile(), outputDir.getName() + "-report.json");
+        ConversionOptions options = new ConversionOptions().threads(2).cacheDir(cacheDir).reportFile(reportFile).quiet(true);
+        try (PdfConverter converter = new PdfConverter(options)) {
+            converter.convertDirectory(inputDir, outputDir, PDFS, new Date(0), new Date(), null).join();
+        }
+        return cast(new JsonParser(Files.readString(reportFile.toPath())).parse());
+    }
+
+    private static Map<String, Object> object(Map<String, Object> json, String name) {
+        assertTrue(json.get(name) instanceof Map, name + " is not an object");
+        return cast(json.get(name));
+    }
+
+    private static List<Object> array(Map<String, Object> json, String name) {
+        assertTrue(json.get(name) instanceof List, name + " is not an array");
+        return cast(json.get(name));
+    }
+
+    private static double number(Map<String, Object> json, String name) {
+        assertTrue(json.get(name) instanceof Double, name + " is not a number");
+        return (Double) json.get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+
+    // Just enough of JSON for the report: objects, arrays, strings, numbers, true, false and null.
+    // Fails the test on anything malformed, trailing commas included
+    private static class JsonParser {
+        private final String json;
+        private int pos;
+
+        JsonParser(String json) {
+            this.json = json;
+        }
+
+        Object parse() {
+            Object value = value();
+            skipWhitespace();
+            assertEquals(json.length(), pos, "Text after the JSON value");
+            return value;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            assertTrue(pos < json.length(), "Unexpected end of the JSON");
+            char c = json.charAt(pos);
+            if (c == '{') {
+                Map<String, Object> object = new LinkedHashMap<>();
+                pos++;
+                if (!consume('}')) {
+                    do {
+                        skipWhitespace();
+                        String name = string();
+                        expect(':');
+                        assertNull(object.put(name, value()), "Duplicate name: " + name);
+                    } while (consume(','));
+                    expect('}');
+                }
+                return object;
+            } else if (c == '[') {
+                List<Object> array = new ArrayList<>();
+                pos++;
+                if (!consume(']')) {
+                    do {
+                        array.add(value());
+                    } while (consume(','));
+                    expect(']');
+                }
+                return array;
+            } else if (c == '"') {
+                return string();
+            } else if (json.startsWith("true", pos) || json.startsWith("false", pos) || json.startsWith("null", pos)) {
+                String literal = json.startsWith("true", pos) ? "true" : json.startsWith("false", pos) ? "false" : "null";
+                pos += literal.length();
+                return literal.equals("null") ? null : Boolean.valueOf(literal);
+            }
+            int start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            assertTrue(pos > start, "Unexpected character at " + pos + ": " + c);
+            return Double.valueOf(json.substring(start, pos));
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (json.charAt(pos) != '"') {
+                char c = json.charAt(pos++);
+                if (c == '\\') {
+                    char escaped = json.charAt(pos++);
+                    if (escaped == 'u') {
+                        sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    } else {
+                        sb.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped == 't' ? '\t' : escaped);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            pos++;
+            return sb.toString();
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (pos < json.length() && json.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            assertTrue(consume(c), "Expected '" + c + "' at " + pos);
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+class ShardTest {
+
+    @Test
+    public void testShards_mergedOutputMatchesSingleNode(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        createCorpus(inputDir);
+        File single = new File(outputDir, "single");
+        File sharded = new File(outputDir, "sharded");
+        Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"), Pattern.CASE_INSENSITIVE);
+        Pdf2Txt.convertPdfs(inputDir, single, pattern, new Date(0), new Date(), new ConversionOptions().recursive(true).quiet(true));
+
+        // Three nodes at once, each a separate JVM like on separate machines
+        List<Process> nodes = new ArrayList<>();
+        for (int shard = 1; shard <= 3; shard++) {
+            nodes.add(startNode(inputDir, sharded, shard + "/3"));
+        }
+        for (Process node : nodes) {
+            assertTrue(node.waitFor(60, TimeUnit.SECONDS), "Node did not finish.");
+            assertEquals(0, node.exitValue());
+        }
+
+        // ---- ✅ Every file converted by exactly one node, same text as a single node ----
+        assertEquals(readTxtFiles(single), readTxtFiles(sharded));
+        assertEquals(12, readTxtFiles(sharded).size());
+    }
+
+    @Test
+    public void testShards_anyNodeTakesOverUnlockedShards(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        createCorpus(inputDir);
+        File single = new File(outputDir, "single");
+        File sharded = new File(outputDir, "sharded");
+        Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"), Pattern.CASE_INSENSITIVE);
+        Pdf2Txt.convertPdfs(inputDir, single, pattern, new Date(0), new Date(), new ConversionOptions().recursive(true).quiet(true));
+        Files.createDirectories(sharded.toPath());
+
+        // Shard 2 is held by a node that is still running, shards 1 and 3 have no node
+        Process extra;
+        try (ShardLock held = ShardLock.tryAcquire(sharded, 2, 3)) {
+            assertNotNull(held);
+            extra = startNode(inputDir, sharded, "any/3");
+
+            // ---- 🚫 A locked shard is left alone while its node runs ----
+            assertFalse(extra.waitFor(5, TimeUnit.SECONDS), "The extra node should wait for the locked shard.");
+            for (String txt : readTxtFiles(sharded).keySet()) {
+                assertNotEquals(2, ShardLock.shardOf(txt.replaceAll("\\.txt$", ".pdf"), 3), "Shard 2 converted while locked: " + txt);
+            }
+        }
+
+        // ---- ✅ Once its node is gone, the extra node takes the shard over ----
+        assertTrue(extra.waitFor(60, TimeUnit.SECONDS), "Extra node did not finish.");
+        assertEquals(0, extra.exitValue());
+        assertEquals(readTxtFiles(single), readTxtFiles(sharded));
+    }
+
+    @Test
+    public void testShards_anyNodeSkipsShardsFinishedMeanwhile(@TempDir File inputDir, @TempDir File outputDir) throws Exception {
+        createCorpus(inputDir);
+        File sharded = new File(outputDir, "sharded");
+        Files.createDirectories(sharded.toPath());
+        ShardLock.markDone(sharded, 1, 3); // left by an earlier run
+
+        // Shard 2 is held by a node that gets through it while the extra node waits
+        Process extra;
+        try (ShardLock held = ShardLock.tryAcquire(sharded, 2, 3)) {
+            assertNotNull(held);
+            extra = startNode(inputDir, sharded, "any/3");
+            assertFalse(extra.waitFor(5, TimeUnit.SECONDS), "The extra node should wait for the locked shard.");
+            ShardLock.markDone(sharded, 2, 3);
+        }
+        assertTrue(extra.waitFor(60, TimeUnit.SECONDS), "Extra node did not finish.");
+        assertEquals(0, extra.exitValue());
+
+        // ---- ✅ Shards done by an earlier run are converted again, as they may have new files ----
+        // ---- 🚫 The shard finished by the other node is not converted a second time ----
+        Map<String, String> converted = readTxtFiles(sharded);
+        int inShard2 = 0;
+        try (Stream<Path> paths = Files.walk(inputDir.toPath())) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                String relative = inputDir.toPath().relativize(path).toString().replace(File.separatorChar, '/');
+                boolean finishedElsewhere = ShardLock.shardOf(relative, 3) == 2;
+                inShard2 += finishedElsewhere ? 1 : 0;
+                assertEquals(!finishedElsewhere, converted.containsKey(relative.replaceAll("\\.pdf$", ".txt")), relative);
+            }
+        }
+        assertTrue(inShard2 > 0, "The corpus should have files in shard 2.");
+    }
+
+    private Process startNode(File inputDir, File outputDir, String shard) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "Pdf2Txt",
+                inputDir.getAbsolutePath(), outputDir.getAbsolutePath(), "--recursive", "--threads", "2", "--shard", shard)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    // Relative path (with '/') → text of every TXT file under dir, hidden bookkeeping files left out
+    private Map<String, String> readTxtFiles(File dir) throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().endsWith(".txt") && !path.getFileName().toString().startsWith(".")) {
+                    files.put(dir.toPath().relativize(path).toString().replace(File.separatorChar, '/'), Files.readString(path));
+                }
+            }
+        }
+        return files;
+    }
+
+    // 12 PDFs in the source folder and two subfolders
+    private void createCorpus(File inputDir) throws IOException {
+        String[] folders = {"", "2023/", "2024/q1/"};
+        for (int i = 1; i <= 12; i++) {
+            File pdf = new File(inputDir, folders[i % 3] + "invoice" + i + ".pdf");
+            Files.createDirectories(pdf.getParentFile().toPath());
+            TestPdfs.createPdf(pdf, "Invoice " + i + ".");
+        }
+    }
+}
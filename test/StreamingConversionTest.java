@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.*;
+import java.util.function.IntFunction;
+
+class StreamingConversionTest {
+    private static final IntFunction<String> PAGE_TEXT = i -> "Streaming page " + i + " of the regulatory filing.";
+
+    @Test
+    public void testWriteText_bufferStaysFlatAsPageCountGrows(@TempDir File inputDir) throws Exception {
+        // ---- Same page content, 10x the page count ----
+        File smallPdf = new File(inputDir, "small.pdf");
+        TestPdfs.createPdf(smallPdf, 20, PAGE_TEXT);
+        File largePdf = new File(inputDir, "large.pdf");
+        TestPdfs.createPdf(largePdf, 200, PAGE_TEXT);
+
+        RecordingWriter smallWriter = new RecordingWriter();
+        try (PDDocument document = PDDocument.load(smallPdf)) {
+            BatchConverter.writeText(document, smallWriter, new PDFTextStripper());
+        }
+        RecordingWriter largeWriter = new RecordingWriter();
+        try (PDDocument document = PDDocument.load(largePdf)) {
+            BatchConverter.writeText(document, largeWriter, new PDFTextStripper());
+        }
+
+        // ---- ✅ Text reaches the writer in page-sized pieces, never as one document-sized String ----
+        assertTrue(largeWriter.totalChars > 9 * smallWriter.totalChars, "Large PDF should produce ~10x the text.");
+        assertTrue(largeWriter.largestWrite <= 2 * smallWriter.largestWrite,
+                "Largest single write grew with page count: " + smallWriter.largestWrite + " -> " + largeWriter.largestWrite);
+        assertTrue(largeWriter.largestWrite < largeWriter.totalChars / 50,
+                "Largest single write should be a small fraction of the document text.");
+    }
+
+    @Test
+    public void testWriteText_matchesGetText(@TempDir File inputDir) throws Exception {
+        File pdf = new File(inputDir, "pages.pdf");
+        TestPdfs.createPdf(pdf, 5, PAGE_TEXT);
+
+        // ---- ✅ Streaming output is identical to the old getText() output ----
+        try (PDDocument document = PDDocument.load(pdf)) {
+            StringWriter streamed = new StringWriter();
+            BatchConverter.writeText(document, streamed, new PDFTextStripper());
+            assertEquals(new PDFTextStripper().getText(document), streamed.toString());
+        }
+    }
+
+    // Writer that only keeps track of how much text it received and the largest single write
+    private static class RecordingWriter extends Writer {
+        long totalChars = 0;
+        int largestWrite = 0;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            record(len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            record(len);
+        }
+
+        private void record(int len) {
+            totalChars += len;
+            largestWrite = Math.max(largestWrite, len);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
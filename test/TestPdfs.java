@@ -0,0 +1,74 @@
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.*;
+import java.util.function.IntFunction;
+
+/**
+ * Generates the PDFs used by the tests: one page per text, a line of text per '\n'-separated line.
+ */
+final class TestPdfs {
+
+    private TestPdfs() {
+    }
+
+    // Utility to generate a PDF file with one page per text
+    static void createPdf(File file, String... pageTexts) throws IOException {
+        createPdf(file, pageTexts.length, i -> pageTexts[i - 1]);
+    }
+
+    // Same, with the text of page i (from 1) given by pageText
+    static void createPdf(File file, int pages, IntFunction<String> pageText) throws IOException {
+        try (PDDocument document = newDocument(pages, pageText)) {
+            document.save(file);
+        }
+    }
+
+    // Same, in memory
+    static byte[] createPdfBytes(String... pageTexts) throws IOException {
+        try (PDDocument document = newDocument(pageTexts.length, i -> pageTexts[i - 1])) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    // Utility to generate corrupted PDF file (invalid PDF content)
+    static void createCorruptedPdf(File file) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(new byte[]{0x25, 0x50, 0x44, 0x46, 0x2D}); // "%PDF-" header truncated
+            fos.write("corrupted content that is not a valid PDF structure".getBytes());
+        }
+    }
+
+    private static PDDocument newDocument(int pages, IntFunction<String> pageText) throws IOException {
+        PDDocument document = new PDDocument();
+        try {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+
+                try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                    contentStream.beginText();
+                    contentStream.setFont(PDType1Font.HELVETICA, 12);
+                    contentStream.newLineAtOffset(100, 700);
+                    String[] lines = pageText.apply(i).split("\n");
+                    for (int line = 0; line < lines.length; line++) {
+                        if (line > 0) {
+                            contentStream.newLineAtOffset(0, -20);
+                        }
+                        contentStream.showText(lines[line]);
+                    }
+                    contentStream.endText();
+                }
+            }
+            return document;
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+class TextContainerTest {
+
+    @Test
+    public void testContainer_writeRollAndRead(@TempDir File dir) throws Exception {
+        File dataFile = new File(dir, "corpus.p2t");
+
+        // ---- Roll over after ~100 bytes, gzip every entry ----
+        try (TextContainerWriter writer = new TextContainerWriter(dataFile, true, 100)) {
+            for (int i = 1; i <= 5; i++) {
+                try (Writer entry = writer.openEntry("docs/file" + i + ".pdf", null)) {
+                    entry.write("Text of document " + i + " with some padding to fill the part. ");
+                }
+            }
+        }
+
+        try (TextContainer container = TextContainer.open(dataFile)) {
+            // ---- ✅ All entries are indexed in order and readable by name ----
+            assertEquals(5, container.entries().size());
+            assertEquals("docs/file1.pdf", container.entries().get(0).name);
+            assertEquals("Text of document 3 with some padding to fill the part. ", container.readText("docs/file3.pdf"));
+            assertTrue(container.entries().get(0).compressed);
+            assertNull(container.find("docs/missing.pdf"));
+
+            // ---- ✅ Parts rolled over into corpus.p2t.1, ... ----
+            assertTrue(new File(dir, "corpus.p2t.1").exists(), "Expected a second container part.");
+            assertNotEquals(container.entries().get(0).part, container.entries().get(4).part);
+        }
+    }
+
+    @Test
+    public void testContainer_resumesAfterCrash(@TempDir File dir) throws Exception {
+        File dataFile = new File(dir, "corpus.p2t");
+        try (TextContainerWriter writer = new TextContainerWriter(dataFile, false, 0)) {
+            try (Writer entry = writer.openEntry("a.pdf", null)) {
+                entry.write("first");
+            }
+        }
+
+        // ---- Simulate a crash: data appended without its index line ----
+        Files.write(dataFile.toPath(), "garbage".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (TextContainerWriter writer = new TextContainerWriter(dataFile, false, 0)) {
+            assertTrue(writer.contains("a.pdf"));
+            try (Writer entry = writer.openEntry("b.pdf", null)) {
+                entry.write("second");
+            }
+        }
+
+        // ---- ✅ Unindexed data was dropped, both entries read back ----
+        assertEquals("firstsecond", Files.readString(dataFile.toPath()));
+        try (TextContainer container = TextContainer.open(dataFile)) {
+            assertEquals("first", container.readText("a.pdf"));
+            assertEquals("second", container.readText("b.pdf"));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+class TextFileWriterTest {
+
+    @Test
+    public void testCommit_encodesAcrossBufferAndWriteBoundaries(@TempDir File outputDir) throws Exception {
+        // Larger than the buffer, with a surrogate pair (U+1D11E) split between two writes
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("Línea ").append(i).append(" 𝄞 €\n");
+        }
+        String expected = text.toString();
+
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.UTF_16}) {
+            File target = new File(outputDir, charset.name() + ".txt");
+            try (TextFileWriter writer = new TextFileWriter(target, charset, 1024, false, -1)) {
+                int split = expected.indexOf('\uD834') + 1;
+                writer.write(expected, 0, split);
+                writer.write(expected, split, expected.length() - split);
+                writer.commit();
+            }
+
+            // ---- ✅ Same text back in the chosen charset ----
+            assertEquals(expected, Files.readString(target.toPath(), charset), charset.name());
+        }
+
+        // ---- ✅ Gzip output decompresses to the same text ----
+        File gzipped = new File(outputDir, "text.txt.gz");
+        try (TextFileWriter writer = new TextFileWriter(gzipped, StandardCharsets.UTF_8, 1024, true, 1)) {
+            writer.write(expected);
+            writer.commit();
+        }
+        try (InputStream in = new GZIPInputStream(new FileInputStream(gzipped))) {
+            assertEquals(expected, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testClose_withoutCommitKeepsOldFile(@TempDir File outputDir) throws Exception {
+        File target = new File(outputDir, "report.txt");
+        Files.writeString(target.toPath(), "Old text.");
+
+        try (TextFileWriter writer = new TextFileWriter(target, StandardCharsets.UTF_8, 1024, false, -1)) {
+            writer.write("New text, half-way through.");
+            writer.flush();
+
+            // ---- 🚫 Nothing reaches the target before the commit ----
+            assertEquals("Old text.", Files.readString(target.toPath()));
+        }
+
+        // ---- 🚫 Closed without a commit: old file kept, temp file removed ----
+        assertEquals("Old text.", Files.readString(target.toPath()));
+        assertArrayEquals(new String[]{"report.txt"}, outputDir.list());
+    }
+}
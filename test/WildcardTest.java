@@ -1,5 +1,6 @@
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
+import java.util.Random;
 import java.util.regex.Pattern;
 
 public class WildcardTest {
@@ -79,5 +80,40 @@ public class WildcardTest {
         boolean matches = pattern.matcher(filename).matches();
         assertEquals(expected, matches,
                 "Wildcard '" + wildcard + "' regex '" + regex + "' matching '" + filename + "' => ");
+        assertEquals(expected, WildcardMatcher.fromPattern(pattern).matches(filename),
+                "WildcardMatcher for '" + wildcard + "' matching '" + filename + "' => ");
+    }
+
+    @Test
+    void testWildcardMatcher_agreesWithRegex() {
+        // ---- ✅ Same result as the regex for random wildcards and names over a small alphabet ----
+        Random random = new Random(42);
+        String patternChars = "ab.*?A";
+        String nameChars = "abAB.";
+        for (int i = 0; i < 2000; i++) {
+            String wildcard = randomString(random, patternChars, 6);
+            Pattern pattern = Pattern.compile(Pdf2Txt.convertWildcardToRegex(wildcard), Pattern.CASE_INSENSITIVE);
+            WildcardMatcher matcher = WildcardMatcher.fromPattern(pattern);
+            for (int j = 0; j < 20; j++) {
+                String name = randomString(random, nameChars, 8);
+                assertEquals(pattern.matcher(name).matches(), matcher.matches(name),
+                        "Wildcard '" + wildcard + "' matching '" + name + "' => ");
+            }
+        }
+
+        // ---- ✅ Case-sensitive patterns and real regexes keep their meaning ----
+        assertFalse(WildcardMatcher.fromPattern(Pattern.compile(Pdf2Txt.convertWildcardToRegex("*.pdf"))).matches("A.PDF"));
+        assertTrue(WildcardMatcher.fromPattern(Pattern.compile("^.*file\\.pdf$", Pattern.CASE_INSENSITIVE)).matches("MyFile.pdf"));
+        assertTrue(WildcardMatcher.fromPattern(Pattern.compile("^report_\\d+\\.pdf$")).matches("report_12.pdf"));
+        assertFalse(WildcardMatcher.fromPattern(Pattern.compile("^report_\\d+\\.pdf$")).matches("report_x.pdf"));
+    }
+
+    private String randomString(Random random, String chars, int maxLength) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
     }
 }
\ No newline at end of file